@@ -0,0 +1,183 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+// Size and throughput benchmark for the Huffman coder
+// Usage: java Benchmark [inputFile]
+public class Benchmark {
+    public static void main(String[] args) throws IOException {
+        byte[] input = args.length > 0
+                ? Files.readAllBytes(Path.of(args[0]))
+                : sampleLog(1 << 22).getBytes(StandardCharsets.ISO_8859_1);
+        HuffmanCoding huffmanCoding = new HuffmanCoding();
+
+        System.out.println("Huffman Benchmark");
+        System.out.println("=================");
+        System.out.println("Input: " + input.length + " bytes");
+
+        // Original format: code table and '0'/'1' characters, through files
+        Path inputFile = Files.createTempFile("huffman", ".in");
+        Path textFile = Files.createTempFile("huffman", ".txt");
+        Path outputFile = Files.createTempFile("huffman", ".out");
+        try {
+            Files.write(inputFile, input);
+            long bestNanos = Long.MAX_VALUE;
+            for (int i = 0; i < 3; i++) {
+                long start = System.nanoTime();
+                huffmanCoding.compressText(inputFile.toString(), textFile.toString());
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            }
+            printResult("text encode (file)", input.length, Files.size(textFile), bestNanos);
+
+            // The text format is decoded with the same tables as the packed one
+            bestNanos = Long.MAX_VALUE;
+            for (int i = 0; i < 3; i++) {
+                Files.delete(outputFile);
+                long start = System.nanoTime();
+                huffmanCoding.decompress(textFile.toString(), outputFile.toString());
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            }
+            if (!Arrays.equals(Files.readAllBytes(outputFile), input)) {
+                throw new IllegalStateException("Text round trip failed");
+            }
+            printResult("text decode (file)", input.length, Files.size(textFile), bestNanos);
+        } finally {
+            Files.deleteIfExists(inputFile);
+            Files.deleteIfExists(textFile);
+            Files.deleteIfExists(outputFile);
+        }
+
+        // Bit-packed format, in memory
+        ByteArrayOutputStream packed = new ByteArrayOutputStream(input.length);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            packed.reset();
+            long start = System.nanoTime();
+            huffmanCoding.compress(input, packed);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        printResult("packed encode", input.length, packed.size(), bestNanos);
+
+        byte[] decoded = null;
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            decoded = huffmanCoding.decompress(new ByteArrayInputStream(packed.toByteArray()));
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        if (!Arrays.equals(decoded, input)) {
+            throw new IllegalStateException("Packed round trip failed");
+        }
+        printResult("packed decode", input.length, packed.size(), bestNanos);
+
+        // Frequency counting: boxed HashMap against interleaved int[256] tables
+        System.out.println();
+        System.out.println("Histogram and tree build");
+        HashMap<Byte, Integer> frequencyMap = null;
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            frequencyMap = new HashMap<>();
+            for (byte data : input) {
+                frequencyMap.put(data, frequencyMap.getOrDefault(data, 0) + 1);
+            }
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        printThroughput("HashMap count", input.length, bestNanos);
+        long[] frequencies = null;
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            frequencies = Histogram.count(input);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        printThroughput("interleaved histogram", input.length, bestNanos);
+
+        // Tree build: HuffmanNode objects in a PriorityQueue against the two-queue array build
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long start = System.nanoTime();
+            HuffmanTree huffmanTree = new HuffmanTree();
+            huffmanTree.generateCodes(huffmanTree.buildTree(frequencyMap), "", new HashMap<>());
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %10.1f us%n", "PriorityQueue tree", bestNanos / 1e3);
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long start = System.nanoTime();
+            CanonicalHuffman.canonicalCodes(CanonicalHuffman.codeLengths(frequencies, CanonicalHuffman.DEFAULT_MAX_LENGTH));
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %10.1f us%n", "array tree", bestNanos / 1e3);
+
+        // Ratio against the code length limit, on the input and on a heavily skewed one
+        byte[] skewed = new byte[input.length];
+        Random random = new Random(7);
+        for (int i = 0; i < skewed.length; i++) {
+            skewed[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 3));
+        }
+        System.out.println();
+        System.out.println("Maximum code length");
+        for (int maxLength = CanonicalHuffman.MIN_LENGTH; maxLength <= CanonicalHuffman.MAX_LENGTH; maxLength++) {
+            packed.reset();
+            huffmanCoding.compress(input, maxLength, packed);
+            long inputSize = packed.size();
+            packed.reset();
+            huffmanCoding.compress(skewed, maxLength, packed);
+            System.out.printf("%-28s %8.4f ratio %8.4f ratio (skewed)%n",
+                    maxLength + " bits", (double) inputSize / input.length, (double) packed.size() / skewed.length);
+        }
+
+        // Header cost on small inputs
+        System.out.println();
+        System.out.println("Small inputs");
+        for (int length : new int[] {32, 256, 4096}) {
+            packed.reset();
+            huffmanCoding.compress(Arrays.copyOf(input, length), packed);
+            System.out.printf("%-28s %8d bytes%n", length + " bytes", packed.size());
+        }
+    }
+
+    static void printThroughput(String name, long inputLength, long nanos) {
+        System.out.printf("%-28s %10.2f MB/s%n", name, inputLength / (nanos / 1e9) / (1 << 20));
+    }
+
+    static void printResult(String name, long inputLength, long outputLength, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-28s %12d bytes %8.3f ratio %10.2f MB/s%n",
+                name, outputLength, (double) outputLength / inputLength, inputLength / seconds / (1 << 20));
+    }
+
+    // Generate log-like text with plenty of repeated phrases
+    static String sampleLog(int length) {
+        String[] levels = {"INFO", "WARN", "DEBUG", "ERROR"};
+        String[] messages = {
+                "Request completed", "Cache miss for key", "Connection reset by peer",
+                "Retrying operation", "User session created", "Slow query detected"
+        };
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length + 128);
+        while (builder.length() < length) {
+            builder.append("2023-10-")
+                    .append(10 + random.nextInt(20))
+                    .append(" 12:")
+                    .append(10 + random.nextInt(50))
+                    .append(' ')
+                    .append(levels[random.nextInt(levels.length)])
+                    .append(" [worker-")
+                    .append(random.nextInt(8))
+                    .append("] ")
+                    .append(messages[random.nextInt(messages.length)])
+                    .append(" id=")
+                    .append(random.nextInt(100000))
+                    .append('\n');
+        }
+        return builder.substring(0, length);
+    }
+}
@@ -0,0 +1,53 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Reads values written by BitWriter, least significant bit first, through a 64-bit accumulator
+public class BitReader {
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int bufferPosition;
+    private int bufferLength;
+    private long bits;
+    private int bitCount;
+    private int paddingBits; // Zero bits added after the end of the data
+
+    public BitReader(InputStream in) {
+        this.in = in;
+    }
+
+    // Read count bits (at most 32) as an unsigned value
+    public int read(int count) throws IOException {
+        int value = peek(count);
+        consume(count);
+        return value;
+    }
+
+    // Look at the next count bits (at most 32) without consuming them; bits past the end of the
+    // data read as zeros, so a decoder can always peek a full table index
+    public int peek(int count) throws IOException {
+        while (bitCount < count) {
+            if (bufferPosition == bufferLength) {
+                bufferLength = Math.max(0, in.read(buffer));
+                bufferPosition = 0;
+                if (bufferLength == 0) {
+                    paddingBits += 8;
+                    bitCount += 8;
+                    continue;
+                }
+            }
+            bits |= (buffer[bufferPosition++] & 0xFFL) << bitCount;
+            bitCount += 8;
+        }
+        return (int) (bits & (0xFFFFFFFFL >>> (32 - count)));
+    }
+
+    // Drop count bits that were looked at with peek
+    public void consume(int count) throws EOFException {
+        if (count > bitCount - paddingBits) {
+            throw new EOFException("Unexpected end of compressed data");
+        }
+        bits >>>= count;
+        bitCount -= count;
+    }
+}
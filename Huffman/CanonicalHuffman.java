@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+// Canonical Huffman codes with a maximum code length. Codes follow from the code lengths
+// alone (shorter codes first, then by symbol), so a file only has to store the lengths, and
+// the limit keeps HuffmanDecoder's tables small.
+public class CanonicalHuffman {
+    public static final int MIN_LENGTH = 8; // Enough for 256 symbols
+    public static final int MAX_LENGTH = 15; // Lengths fit in 4 bits
+    public static final int DEFAULT_MAX_LENGTH = 12;
+
+    // Huffman code lengths for the frequencies of up to 256 symbols, limited to maxLength bits;
+    // unused symbols get length 0
+    public static int[] codeLengths(long[] frequencies, int maxLength) {
+        int[] lengths = new int[frequencies.length];
+
+        // Sort the used symbols by frequency, keeping the symbol in the low bits
+        long[] sorted = new long[frequencies.length];
+        int used = 0;
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            if (frequencies[symbol] > 0) {
+                sorted[used++] = frequencies[symbol] << 8 | symbol;
+            }
+        }
+        if (used == 0) {
+            return lengths;
+        }
+        if (used == 1) {
+            lengths[(int) sorted[0] & 0xFF] = 1;
+            return lengths;
+        }
+        Arrays.sort(sorted, 0, used);
+
+        // Two-queue construction: leaves come in sorted order and merged nodes are created in
+        // non-decreasing weight order, so the two lightest nodes are always at the queue fronts
+        int nodeCount = 2 * used - 1;
+        long[] weight = new long[nodeCount];
+        int[] parent = new int[nodeCount];
+        for (int i = 0; i < used; i++) {
+            weight[i] = sorted[i] >>> 8;
+        }
+        int leaf = 0;
+        int merged = used;
+        for (int node = used; node < nodeCount; node++) {
+            for (int pick = 0; pick < 2; pick++) {
+                int child = leaf < used && (merged >= node || weight[leaf] <= weight[merged]) ? leaf++ : merged++;
+                parent[child] = node;
+                weight[node] += weight[child];
+            }
+        }
+
+        // Depth of every node, working down from the root
+        int[] depth = new int[nodeCount];
+        int[] lengthCounts = new int[Math.max(maxLength, used) + 1];
+        for (int node = nodeCount - 2; node >= 0; node--) {
+            depth[node] = depth[parent[node]] + 1;
+        }
+        for (int i = 0; i < used; i++) {
+            lengthCounts[depth[i]]++;
+        }
+
+        // Fold codes deeper than maxLength into it, then lengthen shorter codes until the code is complete
+        for (int length = maxLength + 1; length < lengthCounts.length; length++) {
+            lengthCounts[maxLength] += lengthCounts[length];
+            lengthCounts[length] = 0;
+        }
+        long total = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            total += (long) lengthCounts[length] << (maxLength - length);
+        }
+        while (total > 1L << maxLength) {
+            lengthCounts[maxLength]--;
+            for (int length = maxLength - 1; length > 0; length--) {
+                if (lengthCounts[length] > 0) {
+                    lengthCounts[length]--;
+                    lengthCounts[length + 1] += 2;
+                    break;
+                }
+            }
+            total--;
+        }
+
+        // Hand out the lengths, longest to the least frequent symbols
+        int i = 0;
+        for (int length = maxLength; length > 0; length--) {
+            for (int count = lengthCounts[length]; count > 0; count--) {
+                lengths[(int) sorted[i++] & 0xFF] = length;
+            }
+        }
+        return lengths;
+    }
+
+    // Canonical codes for the lengths, as bit patterns with the first bit lowest for BitWriter
+    public static long[] canonicalCodes(int[] lengths) {
+        int maxLength = 0;
+        for (int length : lengths) {
+            maxLength = Math.max(maxLength, length);
+        }
+        int[] lengthCounts = new int[maxLength + 1];
+        for (int length : lengths) {
+            lengthCounts[length]++;
+        }
+        lengthCounts[0] = 0;
+
+        int[] nextCode = new int[maxLength + 1];
+        int code = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            code = (code + lengthCounts[length - 1]) << 1;
+            nextCode[length] = code;
+        }
+
+        long[] codes = new long[lengths.length];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > 0) {
+                codes[symbol] = Integer.reverse(nextCode[length]++) >>> (32 - length);
+            }
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,75 @@
+import java.nio.ByteBuffer;
+
+// Byte frequencies without boxing. Consecutive bytes go to four interleaved tables, so a run of
+// the same byte increments different counters instead of waiting on the store to the one
+// before; the tables are added up at the end.
+public class Histogram {
+    // Count every byte of data
+    public static long[] count(byte[] data) {
+        long[] counts = new long[256];
+        count(data, 0, data.length, counts);
+        return counts;
+    }
+
+    // Add the frequencies of the bytes in data[off, off + len) to counts
+    public static void count(byte[] data, int off, int len, long[] counts) {
+        int[] counts0 = new int[256];
+        int[] counts1 = new int[256];
+        int[] counts2 = new int[256];
+        int[] counts3 = new int[256];
+        int end = off + len;
+        int i = off;
+        for (; i + 8 <= end; i += 8) {
+            counts0[data[i] & 0xFF]++;
+            counts1[data[i + 1] & 0xFF]++;
+            counts2[data[i + 2] & 0xFF]++;
+            counts3[data[i + 3] & 0xFF]++;
+            counts0[data[i + 4] & 0xFF]++;
+            counts1[data[i + 5] & 0xFF]++;
+            counts2[data[i + 6] & 0xFF]++;
+            counts3[data[i + 7] & 0xFF]++;
+        }
+        for (; i < end; i++) {
+            counts0[data[i] & 0xFF]++;
+        }
+        add(counts, counts0, counts1, counts2, counts3);
+    }
+
+    // Add the frequencies of the bytes between the position and the limit of data to counts,
+    // and advance its position; works on mapped and other direct buffers too
+    public static void count(ByteBuffer data, long[] counts) {
+        if (data.hasArray()) {
+            count(data.array(), data.arrayOffset() + data.position(), data.remaining(), counts);
+            data.position(data.limit());
+            return;
+        }
+        int[] counts0 = new int[256];
+        int[] counts1 = new int[256];
+        int[] counts2 = new int[256];
+        int[] counts3 = new int[256];
+        int end = data.limit();
+        int i = data.position();
+        for (; i + 8 <= end; i += 8) {
+            counts0[data.get(i) & 0xFF]++;
+            counts1[data.get(i + 1) & 0xFF]++;
+            counts2[data.get(i + 2) & 0xFF]++;
+            counts3[data.get(i + 3) & 0xFF]++;
+            counts0[data.get(i + 4) & 0xFF]++;
+            counts1[data.get(i + 5) & 0xFF]++;
+            counts2[data.get(i + 6) & 0xFF]++;
+            counts3[data.get(i + 7) & 0xFF]++;
+        }
+        for (; i < end; i++) {
+            counts0[data.get(i) & 0xFF]++;
+        }
+        add(counts, counts0, counts1, counts2, counts3);
+        data.position(end);
+    }
+
+    // Each table sees at most half of an int-sized input, so none of them overflows
+    private static void add(long[] counts, int[] counts0, int[] counts1, int[] counts2, int[] counts3) {
+        for (int symbol = 0; symbol < 256; symbol++) {
+            counts[symbol] += (long) counts0[symbol] + counts1[symbol] + counts2[symbol] + counts3[symbol];
+        }
+    }
+}
@@ -0,0 +1,412 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Handles the compression and decompression of files using Huffman coding
+class HuffmanCoding {
+    private static final Logger LOGGER = Logger.getLogger(HuffmanCoding.class.getName());
+    private static final int MAGIC = 0x48554642; // "HUFB"
+    private static final int VERSION = 2;
+    private static final int WINDOW = 1 << 26; // Bytes of the input file mapped at a time
+
+    // Compress a file using Huffman coding
+    public void compress(String inputFile, String outputFile) {
+        try (FileChannel in = FileChannel.open(Path.of(inputFile), StandardOpenOption.READ);
+             OutputStream out = new FileOutputStream(outputFile)) {
+            compress(in, CanonicalHuffman.DEFAULT_MAX_LENGTH, out);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred during compression", e);
+        }
+    }
+
+    // Compress data into real bits, with codes of at most CanonicalHuffman.DEFAULT_MAX_LENGTH bits
+    public void compress(byte[] inputData, OutputStream out) throws IOException {
+        compress(inputData, CanonicalHuffman.DEFAULT_MAX_LENGTH, out);
+    }
+
+    // Compress data into real bits with canonical codes of at most maxLength bits. Format: magic
+    // "HUFB", version, input length, then a bit stream, least significant bit first, of the 256
+    // code lengths in 4 bits each (0 and a 4-bit count n stand for n + 1 unused symbols) and
+    // every code.
+    public void compress(byte[] inputData, int maxLength, OutputStream out) throws IOException {
+        checkMaxLength(maxLength);
+
+        // Step 1: Calculate character frequencies
+        long[] frequencies = Histogram.count(inputData);
+
+        // Step 2: Assign length-limited canonical codes, built in flat arrays
+        int[] lengths = CanonicalHuffman.codeLengths(frequencies, maxLength);
+        long[] codes = CanonicalHuffman.canonicalCodes(lengths);
+
+        // Step 3: Write the header and the code lengths
+        BitWriter writer = writeHeader(out, inputData.length, lengths);
+
+        // Step 4: Write the codes through the 64-bit accumulator
+        for (byte data : inputData) {
+            writer.write((int) codes[data & 0xFF], lengths[data & 0xFF]);
+        }
+        writer.flush();
+    }
+
+    // Compress a file in the same format without reading it into memory: one pass over mapped
+    // windows of the channel counts the frequencies, a second pass writes the codes
+    public void compress(FileChannel in, int maxLength, OutputStream out) throws IOException {
+        checkMaxLength(maxLength);
+        long size = in.size();
+
+        // Step 1: Calculate character frequencies, one window at a time
+        long[] frequencies = new long[256];
+        for (long position = 0; position < size; position += WINDOW) {
+            Histogram.count(in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position)),
+                    frequencies);
+        }
+
+        // Step 2: Assign length-limited canonical codes, built in flat arrays
+        int[] lengths = CanonicalHuffman.codeLengths(frequencies, maxLength);
+        long[] codes = CanonicalHuffman.canonicalCodes(lengths);
+
+        // Step 3: Write the header and the code lengths
+        BitWriter writer = writeHeader(out, size, lengths);
+
+        // Step 4: Map the windows again and write the codes
+        for (long position = 0; position < size; position += WINDOW) {
+            MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(WINDOW, size - position));
+            for (int i = 0, limit = window.limit(); i < limit; i++) {
+                int symbol = window.get(i) & 0xFF;
+                if (lengths[symbol] == 0) {
+                    throw new IOException("Input changed between the two passes");
+                }
+                writer.write((int) codes[symbol], lengths[symbol]);
+            }
+        }
+        writer.flush();
+    }
+
+    private static void checkMaxLength(int maxLength) {
+        if (maxLength < CanonicalHuffman.MIN_LENGTH || maxLength > CanonicalHuffman.MAX_LENGTH) {
+            throw new IllegalArgumentException("Maximum code length must be between " + CanonicalHuffman.MIN_LENGTH
+                    + " and " + CanonicalHuffman.MAX_LENGTH + ": " + maxLength);
+        }
+    }
+
+    // Write the header and the code lengths, with runs of unused symbols collapsed; the codes
+    // follow in the returned writer
+    private static BitWriter writeHeader(OutputStream out, long length, int[] lengths) throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeLong(length);
+        BitWriter writer = new BitWriter(out);
+        for (int symbol = 0; symbol < 256; ) {
+            if (lengths[symbol] > 0) {
+                writer.write(lengths[symbol++], 4);
+            } else {
+                int run = 1;
+                while (run < 16 && symbol + run < 256 && lengths[symbol + run] == 0) {
+                    run++;
+                }
+                writer.write(0, 4);
+                writer.write(run - 1, 4);
+                symbol += run;
+            }
+        }
+        return writer;
+    }
+
+    // Decompress data written by compress(byte[], OutputStream)
+    public byte[] decompress(InputStream in) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        checkHeader(header);
+        long length = header.readLong();
+        if (length < 0 || length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Corrupt Huffman header: length " + length);
+        }
+        byte[] decoded = new byte[(int) length];
+        if (length == 0) {
+            return decoded;
+        }
+
+        byte[] data = in.readAllBytes();
+        int[] lengths = new int[256];
+        int nibbles = 0;
+        for (int symbol = 0; symbol < 256; ) {
+            int value = nibble(data, nibbles++);
+            if (value > 0) {
+                lengths[symbol++] = value;
+            } else {
+                symbol += nibble(data, nibbles++) + 1;
+                if (symbol > 256) {
+                    throw new IOException("Corrupt Huffman code lengths");
+                }
+            }
+        }
+        long[] codes = CanonicalHuffman.canonicalCodes(lengths);
+        long dataStart = 4L * nibbles; // Bit position of the first code
+
+        HuffmanDecoder decoder;
+        try {
+            decoder = new HuffmanDecoder(codes, lengths);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt Huffman code: " + e.getMessage(), e);
+        }
+        if (decoder.decode(data, dataStart, 8L * data.length, decoded, 0, decoded.length) < decoded.length) {
+            throw new EOFException("Unexpected end of compressed data");
+        }
+        return decoded;
+    }
+
+    // Decompress data written by compress into out, reading the codes through a BitReader and
+    // writing one buffer at a time, so memory does not depend on the length
+    public void decompress(InputStream in, OutputStream out) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        checkHeader(header);
+        long length = header.readLong();
+        if (length < 0) {
+            throw new IOException("Corrupt Huffman header: length " + length);
+        }
+        if (length == 0) {
+            return;
+        }
+
+        BitReader reader = new BitReader(in);
+        int[] lengths = new int[256];
+        for (int symbol = 0; symbol < 256; ) {
+            int value = reader.read(4);
+            if (value > 0) {
+                lengths[symbol++] = value;
+            } else {
+                symbol += reader.read(4) + 1;
+                if (symbol > 256) {
+                    throw new IOException("Corrupt Huffman code lengths");
+                }
+            }
+        }
+        long[] codes = CanonicalHuffman.canonicalCodes(lengths);
+
+        HuffmanDecoder decoder;
+        try {
+            decoder = new HuffmanDecoder(codes, lengths);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt Huffman code: " + e.getMessage(), e);
+        }
+        decoder.decode(reader, out, length);
+    }
+
+    // Check the magic number and the format version
+    private static void checkHeader(DataInputStream header) throws IOException {
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a bit-packed Huffman file");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported Huffman format version: " + version);
+        }
+    }
+
+    // The index-th 4-bit value of data, low half of each byte first
+    private static int nibble(byte[] data, int index) throws EOFException {
+        if (index >>> 1 >= data.length) {
+            throw new EOFException("Unexpected end of Huffman code lengths");
+        }
+        return data[index >>> 1] >>> ((index & 1) * 4) & 0xF;
+    }
+
+    // Decode '0' and '1' characters with the lookup tables of HuffmanDecoder
+    private static byte[] decodeText(String[] codeStrings, String text) throws IOException {
+        // Codes as bit patterns, first character in the lowest bit
+        long[] codes = new long[256];
+        int[] lengths = new int[256];
+        for (int symbol = 0; symbol < codeStrings.length; symbol++) {
+            if (codeStrings[symbol] != null) {
+                codes[symbol] = packBits(codeStrings[symbol], 0, codeStrings[symbol].length())[0];
+                lengths[symbol] = codeStrings[symbol].length();
+            }
+        }
+
+        long[] packedData = packBits(text, 0, text.length());
+        byte[] packedBytes = new byte[packedData.length * 8];
+        for (int i = 0; i < packedBytes.length; i++) {
+            packedBytes[i] = (byte) (packedData[i >>> 3] >>> (8 * (i & 7)));
+        }
+        byte[] decoded = new byte[text.length()];
+        int decodedLength = new HuffmanDecoder(codes, lengths).decode(packedBytes, 0, text.length(),
+                decoded, 0, decoded.length);
+        return Arrays.copyOf(decoded, decodedLength);
+    }
+
+    // Decode '0' and '1' characters one at a time down a tree of the codes, for codes longer
+    // than HuffmanDecoder takes; a nonzero frequency marks the node that ends a code
+    private static byte[] decodeTextByTree(String[] codes, String text) throws IOException {
+        HuffmanNode root = new HuffmanNode();
+        for (int symbol = 0; symbol < codes.length; symbol++) {
+            if (codes[symbol] == null) {
+                continue;
+            }
+            HuffmanNode node = root;
+            for (int i = 0; i < codes[symbol].length(); i++) {
+                if (node.frequency != 0) {
+                    throw new IllegalArgumentException("Huffman codes are not prefix-free");
+                }
+                char c = codes[symbol].charAt(i);
+                if (c == '1') {
+                    node = node.right = node.right != null ? node.right : new HuffmanNode();
+                } else if (c == '0') {
+                    node = node.left = node.left != null ? node.left : new HuffmanNode();
+                } else {
+                    throw new IllegalArgumentException("Unexpected character '" + c + "' in Huffman code");
+                }
+            }
+            if (node == root || node.frequency != 0 || node.left != null || node.right != null) {
+                throw new IllegalArgumentException("Huffman codes are not prefix-free");
+            }
+            node.data = (byte) symbol;
+            node.frequency = 1;
+        }
+
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        HuffmanNode node = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '0' && c != '1') {
+                throw new IOException("Unexpected character '" + c + "' in Huffman data");
+            }
+            node = c == '1' ? node.right : node.left;
+            if (node == null) {
+                throw new IOException("Invalid Huffman code in compressed data");
+            }
+            if (node.frequency != 0) {
+                decoded.write(node.data);
+                node = root;
+            }
+        }
+        if (node != root) {
+            throw new EOFException("Unexpected end of compressed data");
+        }
+        return decoded.toByteArray();
+    }
+
+    // Pack '0' and '1' characters into bits, 64 per long, first character in the lowest bit
+    private static long[] packBits(String text, int start, int end) throws IOException {
+        long[] packed = new long[Math.max(1, (end - start + 63) >>> 6)];
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '1') {
+                packed[(i - start) >>> 6] |= 1L << (i - start);
+            } else if (c != '0') {
+                throw new IOException("Unexpected character '" + c + "' in Huffman data");
+            }
+        }
+        return packed;
+    }
+
+    // Compress a file into the original text format: one "symbol:code" line per symbol, a
+    // separator line, then the codes as '0' and '1' characters
+    public void compressText(String inputFile, String outputFile) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
+            // Step 1: Calculate character frequencies
+            HashMap<Byte, Integer> frequencies = new HashMap<>();
+            byte[] inputData = Files.readAllBytes(Path.of(inputFile));
+
+            for (byte data : inputData) {
+                frequencies.put(data, frequencies.getOrDefault(data, 0) + 1);
+            }
+
+            // Step 2: Build the Huffman tree
+            HuffmanTree huffmanTree = new HuffmanTree();
+            HuffmanNode root = huffmanTree.buildTree(frequencies);
+
+            // Step 3: Generate Huffman codes
+            HashMap<Byte, String> codes = new HashMap<>();
+            huffmanTree.generateCodes(root, "", codes);
+
+            // Step 4: Write Huffman codes to the output file
+            for (byte data : codes.keySet()) {
+                writer.write(data + ":" + codes.get(data) + "\n");
+            }
+
+            // Step 5: Separate codes from compressed data using a special character
+            writer.write("#####\n");
+
+            // Step 6: Write compressed data to the output file
+            StringBuilder compressedData = new StringBuilder();
+            for (byte data : inputData) {
+                compressedData.append(codes.get(data));
+            }
+            writer.write(compressedData.toString());
+
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred during compression", e);
+        }
+    }
+
+    // Decompress a file using Huffman coding, in the bit-packed or the original text format
+    public void decompress(String inputFile, String outputFile) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(inputFile)))) {
+            in.mark(4);
+            boolean packed = in.available() >= 4 && in.readInt() == MAGIC;
+            in.reset();
+            if (!packed) {
+                decompressText(inputFile, outputFile);
+                return;
+            }
+            try (OutputStream out = new FileOutputStream(outputFile)) {
+                decompress(in, out);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred during decompression", e);
+        }
+    }
+
+    // Decompress a file in the original text format
+    public void decompressText(String inputFile, String outputFile) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(inputFile))) {
+            // Step 1: Read Huffman codes from the input file
+            List<String> lines = Files.readAllLines(Path.of(inputFile));
+            int separatorIndex = lines.indexOf("#####");
+
+            if (separatorIndex == -1) {
+                LOGGER.log(Level.SEVERE, "Separator not found in compressed data. Invalid format.");
+                return;
+            }
+
+            List<String> codesLines = lines.subList(0, separatorIndex);
+            String compressedDataLine = separatorIndex + 1 < lines.size() ? lines.get(separatorIndex + 1) : "";
+
+            // Step 2: Parse Huffman codes
+            String[] codes = new String[256];
+            int maxLength = 0;
+            for (String codeLine : codesLines) {
+                String[] parts = codeLine.split(":");
+                if (parts.length == 2) {
+                    int data = Byte.parseByte(parts[0]) & 0xFF;
+                    codes[data] = parts[1];
+                    maxLength = Math.max(maxLength, parts[1].length());
+                }
+            }
+
+            // Step 3: Decode the compressed data; this format does not limit the code lengths, so
+            // codes too long for the lookup tables are decoded by walking a tree of them
+            byte[] decodedBytes;
+            try {
+                decodedBytes = maxLength <= CanonicalHuffman.MAX_LENGTH
+                        ? decodeText(codes, compressedDataLine)
+                        : decodeTextByTree(codes, compressedDataLine);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt Huffman code table: " + e.getMessage(), e);
+            }
+
+            // Step 4: Write the decoded data to the output file
+            Files.write(Path.of(outputFile), decodedBytes, StandardOpenOption.CREATE);
+
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred during decompression", e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Table-driven Huffman decoder. The next ROOT_BITS bits of input index a root table that
+// resolves every code of up to ROOT_BITS bits in one probe; longer codes that share a root
+// prefix get a second-level table indexed by the bits after it. Codes are limited to
+// CanonicalHuffman.MAX_LENGTH bits, so a second-level table has at most 16 entries.
+// Codes are bit patterns with the first bit lowest, as written by BitWriter.
+public class HuffmanDecoder {
+    private static final int ROOT_BITS = 11;
+    private static final int LINK = 0x80; // Root entry points to a second-level table
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Entries: symbol << 8 | length, offset << 8 | LINK | subtable bits, or -1 for no code
+    private final int[] root = new int[1 << ROOT_BITS];
+    private final int[] sub;
+    private final int maxLength; // Longest code
+
+    public HuffmanDecoder(long[] codes, int[] lengths) {
+        Arrays.fill(root, -1);
+        maxLength = Arrays.stream(lengths).max().orElse(0);
+
+        // Longest code under each root prefix, to size the second-level tables
+        int[] subBits = new int[1 << ROOT_BITS];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > CanonicalHuffman.MAX_LENGTH) {
+                throw new IllegalArgumentException("Huffman code of " + length + " bits is too long");
+            }
+            if (length > ROOT_BITS) {
+                int prefix = (int) codes[symbol] & ((1 << ROOT_BITS) - 1);
+                subBits[prefix] = Math.max(subBits[prefix], length - ROOT_BITS);
+            }
+        }
+        int subSize = 0;
+        for (int prefix = 0; prefix < subBits.length; prefix++) {
+            if (subBits[prefix] > 0) {
+                root[prefix] = subSize << 8 | LINK | subBits[prefix];
+                subSize += 1 << subBits[prefix];
+            }
+        }
+        sub = new int[subSize];
+        Arrays.fill(sub, -1);
+
+        // Every bit pattern that starts with a symbol's code maps to that symbol
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length == 0) {
+                continue;
+            }
+            int code = (int) codes[symbol];
+            if (length <= ROOT_BITS) {
+                for (int pattern = code; pattern < root.length; pattern += 1 << length) {
+                    fill(root, pattern, symbol << 8 | length);
+                }
+                continue;
+            }
+            int link = root[code & ((1 << ROOT_BITS) - 1)];
+            int offset = link >>> 8;
+            int size = 1 << (link & 0x1F);
+            for (int pattern = code >>> ROOT_BITS; pattern < size; pattern += 1 << (length - ROOT_BITS)) {
+                fill(sub, offset + pattern, symbol << 8 | length);
+            }
+        }
+    }
+
+    // Decode up to count symbols into out from the bits of in between bitOffset and bitEnd, and
+    // return how many were decoded; fewer than count means the bits ended cleanly
+    public int decode(byte[] in, long bitOffset, long bitEnd, byte[] out, int outOff, int count) throws IOException {
+        int position = (int) (bitOffset >>> 3);
+        int end = (int) Math.min(in.length, (bitEnd + 7) >>> 3);
+        long left = bitEnd - bitOffset; // Real bits not consumed yet; the rest of the last byte is padding
+        long bits = 0;
+        int bitCount = 0;
+        if (position < end) {
+            bits = (in[position++] & 0xFF) >>> (bitOffset & 7);
+            bitCount = 8 - (int) (bitOffset & 7);
+        }
+
+        int i = 0;
+        for (; i < count && left > 0; i++) {
+            if (bitCount < 32) {
+                // Refill four bytes at once away from the end
+                if (position + 4 <= end) {
+                    bits |= ((int) INTS.get(in, position) & 0xFFFFFFFFL) << bitCount;
+                    position += 4;
+                    bitCount += 32;
+                } else {
+                    while (bitCount <= 56 && position < end) {
+                        bits |= (in[position++] & 0xFFL) << bitCount;
+                        bitCount += 8;
+                    }
+                }
+            }
+            int entry = root[(int) bits & ((1 << ROOT_BITS) - 1)];
+            if ((entry & LINK) != 0 && entry >= 0) {
+                entry = sub[(entry >>> 8) + ((int) (bits >>> ROOT_BITS) & ((1 << (entry & 0x1F)) - 1))];
+            }
+            if (entry < 0) {
+                throw new IOException("Invalid Huffman code in compressed data");
+            }
+            int length = entry & 0x1F;
+            if (length > left) {
+                throw new EOFException("Unexpected end of compressed data");
+            }
+            bits >>>= length;
+            bitCount -= length;
+            left -= length;
+            out[outOff + i] = (byte) (entry >>> 8);
+        }
+        return i;
+    }
+
+    // Decode count symbols from reader into out, holding one buffer of output at a time, so
+    // memory does not depend on the length
+    public void decode(BitReader reader, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        int bufferLength = 0;
+        for (long i = 0; i < count; i++) {
+            // Bits past the end of the data read as zeros; consume catches a code cut short
+            int bits = reader.peek(Math.max(1, maxLength));
+            int entry = root[bits & ((1 << ROOT_BITS) - 1)];
+            if ((entry & LINK) != 0 && entry >= 0) {
+                entry = sub[(entry >>> 8) + ((bits >>> ROOT_BITS) & ((1 << (entry & 0x1F)) - 1))];
+            }
+            if (entry < 0) {
+                throw new IOException("Invalid Huffman code in compressed data");
+            }
+            reader.consume(entry & 0x1F);
+            buffer[bufferLength++] = (byte) (entry >>> 8);
+            if (bufferLength == buffer.length) {
+                out.write(buffer, 0, bufferLength);
+                bufferLength = 0;
+            }
+        }
+        out.write(buffer, 0, bufferLength);
+    }
+
+    private static void fill(int[] table, int index, int entry) {
+        if (table[index] != -1) {
+            throw new IllegalArgumentException("Huffman codes are not prefix-free");
+        }
+        table[index] = entry;
+    }
+}
@@ -0,0 +1,12 @@
+
+// Represents a node in the Huffman tree
+class HuffmanNode implements Comparable<HuffmanNode> {
+    byte data;
+    int frequency;
+    HuffmanNode left, right;
+
+    // Compare nodes based on their frequencies
+    public int compareTo(HuffmanNode node) {
+        return this.frequency - node.frequency;
+    }
+}
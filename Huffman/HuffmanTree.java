@@ -0,0 +1,51 @@
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+// Represents the Huffman tree and provides methods to build and generate codes
+class HuffmanTree {
+    // Build the Huffman tree based on character frequencies
+    public HuffmanNode buildTree(HashMap<Byte, Integer> frequencies) {
+        PriorityQueue<HuffmanNode> priorityQueue = new PriorityQueue<>();
+
+        // Create leaf nodes for each character and add them to the priority queue
+        for (byte b : frequencies.keySet()) {
+            HuffmanNode node = new HuffmanNode();
+            node.data = b;
+            node.frequency = frequencies.get(b);
+            priorityQueue.add(node);
+        }
+
+        // Build the Huffman tree by combining nodes until only one node remains
+        while (priorityQueue.size() > 1) {
+            HuffmanNode x = priorityQueue.poll();
+            HuffmanNode y = priorityQueue.poll();
+
+            HuffmanNode sum = new HuffmanNode();
+            if (y == null) {
+                // Handle the case when y is null (only one node remaining)
+                sum.frequency = x.frequency;
+                sum.left = x;
+            } else {
+                sum.frequency = x.frequency + y.frequency;
+                sum.left = x;
+                sum.right = y;
+            }
+            priorityQueue.add(sum);
+        }
+
+        return priorityQueue.poll();
+    }
+
+    // Generate Huffman codes for each character in the tree
+    public void generateCodes(HuffmanNode root, String code, HashMap<Byte, String> codes) {
+        if (root != null) {
+            if (root.left == null && root.right == null) {
+                // Leaf node, add the character and its code to the map
+                codes.put(root.data, code);
+            }
+            // Recursively generate codes for the left and right subtrees
+            generateCodes(root.left, code + "0", codes);
+            generateCodes(root.right, code + "1", codes);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Throughput and ratio benchmark for the LZ77 match finders and parsers
+// Usage: java Benchmark [inputFile] [windowSize]
+public class Benchmark {
+    public static void main(String[] args) throws IOException {
+        String input = args.length > 0
+                ? new String(Files.readAllBytes(Path.of(args[0])), StandardCharsets.ISO_8859_1)
+                : sampleLog(1 << 18);
+        int windowSize = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+
+        System.out.println("LZ-77 Benchmark");
+        System.out.println("===============");
+        System.out.println("Input: " + input.length() + " characters, window: " + windowSize);
+
+        run("brute force", input, windowSize, new BruteForceMatchFinder());
+        run("hash chain (depth 16)", input, windowSize, new HashChainMatchFinder(16));
+        run("hash chain (depth 64)", input, windowSize, new HashChainMatchFinder(64));
+        run("hash chain (depth 256)", input, windowSize, new HashChainMatchFinder(256));
+        run("binary tree (greedy)", input, windowSize, new BinaryTreeMatchFinder());
+        runOptimal("binary tree (optimal)", input, windowSize, new BinaryTreeMatchFinder());
+
+        byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+        runBytes("byte engine (depth 16)", bytes, new ByteLZ77(windowSize, 5, 16));
+        runBytes("byte engine (depth 64)", bytes, new ByteLZ77(windowSize, 5, 64));
+
+        // How the lookahead buffer size changes speed and ratio
+        System.out.println();
+        System.out.println("Lookahead sweep (hash chain depth 64)");
+        for (int bufferSize : new int[] {5, 16, 32, 64, 258, 1024}) {
+            runLookahead(input, windowSize, bufferSize);
+        }
+
+        // Decoding speed into preallocated output
+        System.out.println();
+        System.out.println("Decompression (lookahead 258)");
+        runDecompress(input, bytes, windowSize);
+
+        // Speed against ratio for each compression level
+        System.out.println();
+        System.out.println("Compression levels (byte engine, lookahead 258)");
+        for (int level = CompressionLevel.MIN_LEVEL; level <= CompressionLevel.MAX_LEVEL; level++) {
+            runLevel(bytes, windowSize, CompressionLevel.of(level));
+        }
+
+        // Block-parallel compression on the common pool
+        System.out.println();
+        System.out.println("Parallel blocks (" + ForkJoinPool.commonPool().getParallelism() + " workers)");
+        runParallel("independent blocks", bytes, new ParallelLZ77(windowSize, 258, 64, 1 << 16, false));
+        runParallel("primed blocks", bytes, new ParallelLZ77(windowSize, 258, 64, 1 << 16, true));
+    }
+
+    // Compress with a level and report throughput and packed ratio
+    private static void runLevel(byte[] input, int windowSize, CompressionLevel level) throws IOException {
+        ByteLZ77 engine = new ByteLZ77(windowSize, 258, level);
+        TokenBuffer tokens = new TokenBuffer(input.length);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            engine.compress(input, 0, input.length, tokens);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        if (!Arrays.equals(ByteLZ77.decompress(tokens), input)) {
+            throw new IllegalStateException(level + " did not round-trip");
+        }
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        LZ77Format.write(tokens, packed);
+        ByteArrayOutputStream entropyCoded = new ByteArrayOutputStream();
+        DeflateLZ77.write(tokens, entropyCoded);
+        System.out.printf("level %d %10d tags %6.3f ratio %6.3f with Huffman %10.2f MB/s%n", level.level(),
+                tokens.size(), (double) packed.size() / input.length, (double) entropyCoded.size() / input.length,
+                input.length / (bestNanos / 1e9) / (1 << 20));
+    }
+
+    // Compress and decompress with the parallel container and report both throughputs and the ratio
+    private static void runParallel(String name, byte[] input, ParallelLZ77 compressor) throws IOException {
+        byte[] framed = null;
+        long bestCompress = Long.MAX_VALUE;
+        long bestDecompress = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            framed = compressor.compress(input);
+            long middle = System.nanoTime();
+            byte[] output = ParallelLZ77.decompress(framed);
+            bestCompress = Math.min(bestCompress, middle - start);
+            bestDecompress = Math.min(bestDecompress, System.nanoTime() - middle);
+            if (!Arrays.equals(output, input)) {
+                throw new IllegalStateException(name + " did not round-trip");
+            }
+        }
+        System.out.printf("%-28s %6.3f ratio %10.2f MB/s compress %10.2f MB/s decompress%n",
+                name, (double) framed.length / input.length,
+                input.length / (bestCompress / 1e9) / (1 << 20), input.length / (bestDecompress / 1e9) / (1 << 20));
+    }
+
+    // Decode the same tags many times and report the best output throughput
+    private static void runDecompress(String input, byte[] bytes, int windowSize) {
+        ArrayList<LZ77.Tag> tags = LZ77.compress(input, windowSize, 258, new HashChainMatchFinder());
+        char[] chars = new char[LZ77.decompressedLength(tags)];
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            LZ77.decompress(tags, chars, 0);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %10.2f MB/s%n", "tags into char[]", chars.length / (bestNanos / 1e9) / (1 << 20));
+
+        TokenBuffer tokens = new TokenBuffer();
+        new ByteLZ77(windowSize, 258, 64).compress(bytes, 0, bytes.length, tokens);
+        byte[] out = new byte[bytes.length];
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            ByteLZ77.decompress(tokens, out, 0);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        if (!Arrays.equals(out, bytes)) {
+            throw new IllegalStateException("Byte tokens did not round-trip");
+        }
+        System.out.printf("%-28s %10.2f MB/s%n", "tokens into byte[]", out.length / (bestNanos / 1e9) / (1 << 20));
+    }
+
+    // Compress with the given lookahead and report tags per second, characters per tag and packed size
+    private static void runLookahead(String input, int windowSize, int bufferSize) throws IOException {
+        HashChainMatchFinder matchFinder = new HashChainMatchFinder(64);
+        ArrayList<LZ77.Tag> tags = null;
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            tags = LZ77.compress(input, windowSize, bufferSize, matchFinder);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        LZ77Format.write(tags, packed);
+        if (!LZ77.decompress(LZ77Format.read(new ByteArrayInputStream(packed.toByteArray()))).equals(input)) {
+            throw new IllegalStateException("Lookahead " + bufferSize + " did not round-trip");
+        }
+        double seconds = bestNanos / 1e9;
+        System.out.printf("lookahead %-5d %10d tags %12.0f tags/s %8.2f chars/tag %6.3f ratio %10.2f MB/s%n",
+                bufferSize, tags.size(), tags.size() / seconds, (double) input.length() / tags.size(),
+                (double) packed.size() / input.length(), input.length() / seconds / (1 << 20));
+    }
+
+    // Same as run, for the byte engine; also reports how much the timed runs allocated
+    private static void runBytes(String name, byte[] input, ByteLZ77 engine) {
+        TokenBuffer tokens = new TokenBuffer(input.length);
+        long bestNanos = Long.MAX_VALUE;
+        long allocated = 0;
+        for (int i = 0; i < 5; i++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            engine.compress(input, 0, input.length, tokens);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            allocated = allocatedBytes() - allocatedBefore;
+        }
+
+        if (!Arrays.equals(ByteLZ77.decompress(tokens), input)) {
+            throw new IllegalStateException(name + " did not round-trip");
+        }
+        printResult(name, input.length, tokens.size(), bestNanos);
+        System.out.println("    allocated during last run: " + allocated + " bytes");
+    }
+
+    // Bytes allocated so far by the current thread, or 0 when the JVM cannot tell
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    // Same as run, for the optimal parser
+    private static void runOptimal(String name, String input, int windowSize, BinaryTreeMatchFinder matchFinder)
+            throws IOException {
+        ArrayList<LZ77.Tag> tags = null;
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            tags = LZ77.compressOptimal(input, windowSize, matchFinder);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        if (!LZ77.decompress(tags).equals(input)) {
+            throw new IllegalStateException(name + " did not round-trip");
+        }
+        printResult(name, input.length(), tags.size(), bestNanos);
+        System.out.println("    packed: " + packedSize(tags) + " bytes");
+    }
+
+    // Compress the input a few times and report the best throughput
+    private static void run(String name, String input, int windowSize, MatchFinder matchFinder)
+            throws IOException {
+        ArrayList<LZ77.Tag> tags = null;
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            tags = LZ77.compress(input, windowSize, matchFinder);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        if (!LZ77.decompress(tags).equals(input)) {
+            throw new IllegalStateException(name + " did not round-trip");
+        }
+        printResult(name, input.length(), tags.size(), bestNanos);
+        System.out.println("    packed: " + packedSize(tags) + " bytes");
+    }
+
+    // Size of the tags in the LZ77Format container
+    private static int packedSize(ArrayList<LZ77.Tag> tags) throws IOException {
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        LZ77Format.write(tags, packed);
+        return packed.size();
+    }
+
+    static void printResult(String name, int inputLength, int tagCount, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-28s %10d tags %8.2f chars/tag %10.2f MB/s%n",
+                name, tagCount, (double) inputLength / tagCount, inputLength / seconds / (1 << 20));
+    }
+
+    // Generate log-like text with plenty of repeated phrases
+    static String sampleLog(int length) {
+        String[] levels = {"INFO", "WARN", "DEBUG", "ERROR"};
+        String[] messages = {
+                "Request completed", "Cache miss for key", "Connection reset by peer",
+                "Retrying operation", "User session created", "Slow query detected"
+        };
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length + 128);
+        while (builder.length() < length) {
+            builder.append("2023-10-")
+                    .append(10 + random.nextInt(20))
+                    .append(" 12:")
+                    .append(10 + random.nextInt(50))
+                    .append(' ')
+                    .append(levels[random.nextInt(levels.length)])
+                    .append(" [worker-")
+                    .append(random.nextInt(8))
+                    .append("] ")
+                    .append(messages[random.nextInt(messages.length)])
+                    .append(" id=")
+                    .append(random.nextInt(100000))
+                    .append('\n');
+        }
+        return builder.substring(0, length);
+    }
+}
@@ -0,0 +1,185 @@
+import java.util.Arrays;
+
+// Match finder that keeps the window positions sharing a 3-character prefix in a binary search
+// tree ordered by the text that follows them, so a single descent reports every longer match.
+// Slower to update than hash chains but finds the longest matches, which optimal parsing needs.
+public class BinaryTreeMatchFinder implements MatchFinder {
+    public static final int DEFAULT_SEARCH_DEPTH = 48;
+
+    private static final int MIN_MATCH = 3;
+    private static final int HASH_BITS = 16;
+    private static final int SHORT_HASH_BITS = 12;
+
+    private final int maxSearchDepth;
+    private final int[] head = new int[1 << HASH_BITS];        // Tree root for each 3-character hash
+    private final int[] head2 = new int[1 << SHORT_HASH_BITS]; // Most recent position for each 2-character hash
+    private final int[] head1 = new int[1 << SHORT_HASH_BITS]; // Most recent position for each character
+    private int[] son = new int[0]; // Left and right children of each position, indexed by position % cyclicSize
+    private int cyclicSize;
+    private char[] data;
+    private int windowSize;
+
+    // Matches found by the last search, in increasing length order
+    private int[] matchLengths = new int[8];
+    private int[] matchOffsets = new int[8];
+    private int matchCount;
+
+    public BinaryTreeMatchFinder() {
+        this(DEFAULT_SEARCH_DEPTH);
+    }
+
+    // maxSearchDepth bounds how many tree nodes are visited per search
+    public BinaryTreeMatchFinder(int maxSearchDepth) {
+        if (maxSearchDepth < 1) {
+            throw new IllegalArgumentException("Search depth must be positive: " + maxSearchDepth);
+        }
+        this.maxSearchDepth = maxSearchDepth;
+    }
+
+    @Override
+    public void reset(char[] data, int windowSize) {
+        this.data = data;
+        this.windowSize = windowSize;
+        this.matchCount = 0;
+
+        // Offsets never exceed the window, so the tree only has to hold windowSize + 1 positions
+        cyclicSize = Math.max(0, Math.min(windowSize, data.length)) + 1;
+        if (son.length < cyclicSize * 2) {
+            son = new int[cyclicSize * 2];
+        }
+        Arrays.fill(head, -1);
+        Arrays.fill(head2, -1);
+        Arrays.fill(head1, -1);
+    }
+
+    @Override
+    public int find(int position, int maxLength) {
+        findMatches(position, maxLength);
+        return matchCount > 0 ? matchLengths[matchCount - 1] : 0;
+    }
+
+    @Override
+    public int offset() {
+        return matchCount > 0 ? matchOffsets[matchCount - 1] : 0;
+    }
+
+    @Override
+    public void skip(int position) {
+        findMatches(position, data.length - position);
+    }
+
+    public int matchCount() {
+        return matchCount;
+    }
+
+    public int matchLength(int index) {
+        return matchLengths[index];
+    }
+
+    public int matchOffset(int index) {
+        return matchOffsets[index];
+    }
+
+    // Report all matches of increasing length (at most maxLength characters) for the lookahead
+    // starting at position, then insert that position into the tree; returns the number of matches
+    public int findMatches(int position, int maxLength) {
+        int lowest = Math.max(0, position - windowSize);
+        int lengthLimit = Math.min(maxLength, data.length - position);
+        int bestLength = 0;
+        matchCount = 0;
+
+        // Short matches come from the most recent 1- and 2-character occurrences
+        int shortIndex = data[position] & ((1 << SHORT_HASH_BITS) - 1);
+        int candidate = head1[shortIndex];
+        head1[shortIndex] = position;
+        if (lengthLimit >= 1 && candidate >= lowest && data[candidate] == data[position]) {
+            bestLength = addMatch(1, position - candidate);
+        }
+        if (position + 1 < data.length) {
+            int h = hash2(position);
+            candidate = head2[h];
+            head2[h] = position;
+            if (lengthLimit >= 2 && candidate >= lowest
+                    && data[candidate] == data[position] && data[candidate + 1] == data[position + 1]) {
+                bestLength = addMatch(2, position - candidate);
+            }
+        }
+        if (lengthLimit < MIN_MATCH) {
+            return matchCount;
+        }
+
+        // Descend the tree, re-linking it so the current position becomes the new root
+        int h = hash3(position);
+        int current = head[h];
+        head[h] = position;
+        int cyclicPos = position % cyclicSize;
+        int ptr0 = (cyclicPos << 1) + 1;
+        int ptr1 = cyclicPos << 1;
+        int len0 = 0;
+        int len1 = 0;
+        int depth = maxSearchDepth;
+
+        while (true) {
+            if (current < lowest || depth-- == 0) {
+                son[ptr0] = -1;
+                son[ptr1] = -1;
+                break;
+            }
+
+            int delta = position - current;
+            int pair = (cyclicPos - delta + (delta > cyclicPos ? cyclicSize : 0)) << 1;
+            int length = Math.min(len0, len1);
+
+            if (data[current + length] == data[position + length]) {
+                // Extend the match, comparing the rest in bulk
+                int mismatch = Arrays.mismatch(data, current + length + 1, current + lengthLimit,
+                        data, position + length + 1, position + lengthLimit);
+                length = mismatch < 0 ? lengthLimit : length + 1 + mismatch;
+                if (length > bestLength) {
+                    bestLength = addMatch(length, delta);
+                    if (length == lengthLimit) {
+                        // The new position replaces the identical node
+                        son[ptr1] = son[pair];
+                        son[ptr0] = son[pair + 1];
+                        break;
+                    }
+                }
+            }
+
+            if (data[current + length] < data[position + length]) {
+                son[ptr1] = current;
+                ptr1 = pair + 1;
+                current = son[ptr1];
+                len1 = length;
+            } else {
+                son[ptr0] = current;
+                ptr0 = pair;
+                current = son[ptr0];
+                len0 = length;
+            }
+        }
+
+        return matchCount;
+    }
+
+    private int addMatch(int length, int offset) {
+        if (matchCount == matchLengths.length) {
+            matchLengths = Arrays.copyOf(matchLengths, matchCount * 2);
+            matchOffsets = Arrays.copyOf(matchOffsets, matchCount * 2);
+        }
+        matchLengths[matchCount] = length;
+        matchOffsets[matchCount] = offset;
+        matchCount++;
+        return length;
+    }
+
+    private int hash3(int position) {
+        int key = (data[position] * 31 + data[position + 1]) * 31 + data[position + 2];
+        return (key * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+
+    private int hash2(int position) {
+        int key = data[position] * 31 + data[position + 1];
+        return (key * 0x9E3779B1) >>> (32 - SHORT_HASH_BITS);
+    }
+}
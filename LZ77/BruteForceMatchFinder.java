@@ -0,0 +1,48 @@
+// Reference match finder that compares the lookahead against every position in the window
+public class BruteForceMatchFinder implements MatchFinder {
+    private char[] data;
+    private int windowSize;
+    private int offset;
+
+    @Override
+    public void reset(char[] data, int windowSize) {
+        this.data = data;
+        this.windowSize = windowSize;
+        this.offset = 0;
+    }
+
+    @Override
+    public int find(int position, int maxLength) {
+        int bestMatchOffset = -1;
+        int bestMatchLength = 0;
+
+        // Search for the best match in the search buffer
+        for (int i = Math.max(0, position - windowSize); i < position; i++) {
+            int length = 0;
+
+            // Compare characters in search buffer and lookahead buffer
+            while (length < maxLength && data[i + length] == data[position + length]) {
+                length++;
+            }
+
+            // Update if a better match is found
+            if (length > bestMatchLength) {
+                bestMatchLength = length;
+                bestMatchOffset = position - i;
+            }
+        }
+
+        offset = bestMatchOffset;
+        return bestMatchLength;
+    }
+
+    @Override
+    public int offset() {
+        return offset;
+    }
+
+    @Override
+    public void skip(int position) {
+        // Nothing to index, every search scans the whole window
+    }
+}
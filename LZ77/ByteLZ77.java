@@ -0,0 +1,306 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Byte-level LZ77 engine for binary data. Tokens have the same meaning as LZ77.Tag but are written
+// into a TokenBuffer, and all search tables are allocated once per engine, so compressing into a
+// buffer that is already large enough allocates nothing. An engine is not thread-safe.
+public class ByteLZ77 {
+    private static final int MIN_MATCH = 3;
+    private static final int HASH_BITS = 15;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int windowSize;
+    private final int bufferSize;
+    private final int maxChainDepth;
+    private final int niceLength;
+    private final int goodLength;
+    private final int maxLazy;
+    private final boolean lazyMatching;
+    private final int[] head = new int[1 << HASH_BITS]; // Most recent position for each 3-byte hash
+    private final int[] head2 = new int[1 << 16];       // Most recent position for each 2-byte sequence
+    private final int[] head1 = new int[1 << 8];        // Most recent position for each byte
+    private final int[] prev;                           // Previous position with the same hash
+    private final int chainMask;
+    private byte[] scratch = new byte[0];               // Copy of direct ByteBuffer input
+    private int matchOffset;
+
+    // windowSize bounds the offsets, bufferSize the match lengths and maxChainDepth the search effort;
+    // every search runs to the end of the chain or the buffer and takes the longest match greedily
+    public ByteLZ77(int windowSize, int bufferSize, int maxChainDepth) {
+        this(windowSize, bufferSize, CompressionLevel.greedy(bufferSize, maxChainDepth));
+    }
+
+    // windowSize bounds the offsets and bufferSize the match lengths; the level tunes the search
+    public ByteLZ77(int windowSize, int bufferSize, CompressionLevel level) {
+        if (windowSize < 1 || bufferSize < 1 || level.maxChainDepth < 1) {
+            throw new IllegalArgumentException("Window size, buffer size and chain depth must be positive");
+        }
+        this.windowSize = windowSize;
+        this.bufferSize = bufferSize;
+        this.maxChainDepth = level.maxChainDepth;
+        this.niceLength = level.niceLength;
+        this.goodLength = level.goodLength;
+        this.maxLazy = level.maxLazy;
+        this.lazyMatching = level.lazyMatching;
+        int chainSize = Integer.highestOneBit(windowSize * 2 - 1);
+        this.prev = new int[chainSize];
+        this.chainMask = chainSize - 1;
+    }
+
+    public int windowSize() {
+        return windowSize;
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    // Compress the remaining bytes of a buffer into tokens; the buffer position moves to its limit
+    public int compress(ByteBuffer input, TokenBuffer tokens) {
+        int length = input.remaining();
+        int count;
+        if (input.hasArray()) {
+            count = compress(input.array(), input.arrayOffset() + input.position(), length, tokens);
+        } else {
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            input.duplicate().get(scratch, 0, length);
+            count = compress(scratch, 0, length, tokens);
+        }
+        input.position(input.limit());
+        return count;
+    }
+
+    // Compress src[off, off + len) into tokens, replacing their contents; returns the token count
+    public int compress(byte[] src, int off, int len, TokenBuffer tokens) {
+        return compress(src, off, off, len, tokens);
+    }
+
+    // Compress src[off, off + len) into tokens, with the bytes from historyOff up to off already in the
+    // window, so matches may refer back to them; returns the token count
+    public int compress(byte[] src, int historyOff, int off, int len, TokenBuffer tokens) {
+        if (historyOff > off) {
+            throw new IllegalArgumentException("History must start before the data: " + historyOff + " > " + off);
+        }
+        tokens.clear();
+        tokens.ensureCapacity(len);
+        resetTables();
+
+        int end = off + len;
+        for (int i = Math.max(historyOff, off - windowSize); i < off; i++) {
+            insert(src, end, i);
+        }
+
+        int[] offsets = tokens.offsets;
+        int[] lengths = tokens.lengths;
+        int[] literals = tokens.literals;
+        int count = 0;
+        int position = off;
+        int indexed = off; // Positions below this are already in the hash tables
+
+        while (position < end) {
+            int length = findMatch(src, historyOff, end, position, Math.min(bufferSize, end - position), maxChainDepth);
+            int offset = matchOffset;
+            indexed = position + 1;
+
+            // Lazy matching: while the next position has a longer match, emit a literal and move on
+            while (lazyMatching && length > 0 && length < maxLazy && position + 1 < end) {
+                int chainDepth = length >= goodLength ? maxChainDepth >> 2 : maxChainDepth;
+                int nextLength = findMatch(src, historyOff, end, position + 1,
+                        Math.min(bufferSize, end - position - 1), Math.max(1, chainDepth));
+                indexed = position + 2;
+                if (nextLength <= length) {
+                    break;
+                }
+                offsets[count] = 0;
+                lengths[count] = 0;
+                literals[count] = src[position] & 0xFF;
+                count++;
+                position++;
+                length = nextLength;
+                offset = matchOffset;
+            }
+
+            if (length > 0) {
+                int next = position + length;
+                offsets[count] = offset;
+                lengths[count] = length;
+                literals[count] = next < end ? src[next] & 0xFF : -1;
+
+                // Index the positions covered by the token so later matches can refer back to them;
+                // fast levels leave out the inside of long matches
+                if (lazyMatching || length <= maxLazy) {
+                    for (int i = Math.max(indexed, position + 1); i <= next && i < end; i++) {
+                        insert(src, end, i);
+                    }
+                } else if (next < end) {
+                    insert(src, end, next);
+                }
+                position = next + 1;
+            } else {
+                offsets[count] = 0;
+                lengths[count] = 0;
+                literals[count] = src[position] & 0xFF;
+                position++;
+            }
+            count++;
+        }
+
+        tokens.size = count;
+        return count;
+    }
+
+    // Decompress tokens into out starting at outOff, which must have room for tokens.decodedLength()
+    // bytes; returns the number of bytes written. Matches may reach back before outOff into bytes
+    // already in out, which lets a block be decoded after the block that primed its window.
+    public static int decompress(TokenBuffer tokens, byte[] out, int outOff) {
+        int position = outOff;
+        int[] offsets = tokens.offsets;
+        int[] lengths = tokens.lengths;
+        int[] literals = tokens.literals;
+
+        for (int i = 0; i < tokens.size; i++) {
+            int length = lengths[i];
+            if (length > 0) {
+                copyMatch(out, position, offsets[i], length);
+                position += length;
+            }
+
+            int literal = literals[i];
+            if (literal >= 0) {
+                out[position++] = (byte) literal;
+            }
+        }
+        return position - outOff;
+    }
+
+    // Copy length bytes starting offset bytes back to position. A match whose offset is shorter
+    // than its length repeats the last offset bytes, so the copy doubles the repeated part each
+    // step instead of going one byte at a time.
+    static void copyMatch(byte[] out, int position, int offset, int length) {
+        int from = position - offset;
+        if (offset <= 0 || from < 0) {
+            throw new IllegalArgumentException("Token offset " + offset + " points outside the output");
+        }
+
+        if (offset >= length) {
+            System.arraycopy(out, from, out, position, length);
+        } else if (offset == 1) {
+            Arrays.fill(out, position, position + length, out[from]);
+        } else {
+            // Copy whole periods so the source always starts at a period boundary
+            int copied = 0;
+            while (copied < length) {
+                int count = Math.min(offset + copied, length - copied);
+                System.arraycopy(out, from, out, position + copied, count);
+                copied += count;
+            }
+        }
+    }
+
+    // Decompress tokens into a new array
+    public static byte[] decompress(TokenBuffer tokens) {
+        byte[] out = new byte[Math.toIntExact(tokens.decodedLength())];
+        decompress(tokens, out, 0);
+        return out;
+    }
+
+    private void resetTables() {
+        Arrays.fill(head, -1);
+        Arrays.fill(head2, -1);
+        Arrays.fill(head1, -1);
+        Arrays.fill(prev, -1);
+    }
+
+    // Find the longest match for the lookahead at position, visiting at most chainDepth chain entries,
+    // and index that position
+    private int findMatch(byte[] src, int start, int end, int position, int maxLength, int chainDepth) {
+        int lowest = Math.max(start, position - windowSize);
+        int bestLength = 0;
+        int bestOffset = 0;
+
+        // Walk the chain of earlier positions that share the same 3-byte prefix
+        if (maxLength >= MIN_MATCH) {
+            int candidate = head[hash3(src, position)];
+            int depth = chainDepth;
+            int stopLength = Math.min(niceLength, maxLength);
+            while (candidate >= lowest && depth-- > 0) {
+                // Skip candidates that cannot beat the current best
+                if (src[candidate + bestLength] == src[position + bestLength]) {
+                    int length = matchLength(src, candidate, position, maxLength);
+                    if (length > bestLength) {
+                        bestLength = length;
+                        bestOffset = position - candidate;
+                        if (length >= stopLength) {
+                            break;
+                        }
+                    }
+                }
+                candidate = prev[candidate & chainMask];
+            }
+        }
+
+        // Short matches still save a token, so fall back to the most recent 2- and 1-byte occurrences
+        if (bestLength < 2 && maxLength >= 2) {
+            int candidate = head2[key2(src, position)];
+            if (candidate >= lowest) {
+                bestLength = 2;
+                bestOffset = position - candidate;
+            }
+        }
+        if (bestLength < 1) {
+            int candidate = head1[src[position] & 0xFF];
+            if (candidate >= lowest) {
+                bestLength = 1;
+                bestOffset = position - candidate;
+            }
+        }
+
+        insert(src, end, position);
+        matchOffset = bestOffset;
+        return bestLength;
+    }
+
+    // Add a position to the hash tables
+    private void insert(byte[] src, int end, int position) {
+        head1[src[position] & 0xFF] = position;
+        if (position + 1 < end) {
+            head2[key2(src, position)] = position;
+        }
+        if (position + 2 < end) {
+            int h = hash3(src, position);
+            prev[position & chainMask] = head[h];
+            head[h] = position;
+        }
+    }
+
+    // Length of the common prefix of src at candidate and position, compared eight bytes at a time
+    static int matchLength(byte[] src, int candidate, int position, int maxLength) {
+        int length = 0;
+        while (length + 8 <= maxLength) {
+            long difference = (long) LONGS.get(src, candidate + length) ^ (long) LONGS.get(src, position + length);
+            if (difference != 0) {
+                // The lowest set bit of the difference marks the first unequal byte
+                return length + (Long.numberOfTrailingZeros(difference) >>> 3);
+            }
+            length += 8;
+        }
+        while (length < maxLength && src[candidate + length] == src[position + length]) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int key2(byte[] src, int position) {
+        return (src[position] & 0xFF) << 8 | (src[position + 1] & 0xFF);
+    }
+
+    private static int hash3(byte[] src, int position) {
+        int key = (src[position] & 0xFF) << 16 | (src[position + 1] & 0xFF) << 8 | (src[position + 2] & 0xFF);
+        return (key * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+// Length-limited canonical Huffman codes for the entropy stage of DeflateLZ77.
+// Codes are stored bit-reversed, because BitWriter and BitReader work least significant bit first,
+// and decoding uses one table indexed by the next maxLength bits of input.
+public class CanonicalHuffman {
+    private final int[] lengths;
+    private final int[] codes;
+    private int[] table; // Decoding table: symbol << 4 | code length, or -1 for unused bit patterns
+    private int tableBits;
+
+    public CanonicalHuffman(int[] lengths) {
+        this.lengths = lengths;
+        this.codes = canonicalCodes(lengths);
+    }
+
+    // Build a code for the given symbol frequencies with no code longer than maxLength bits
+    public static CanonicalHuffman fromFrequencies(int[] frequencies, int maxLength) {
+        return new CanonicalHuffman(codeLengths(frequencies, maxLength));
+    }
+
+    public int length(int symbol) {
+        return lengths[symbol];
+    }
+
+    public int[] lengths() {
+        return lengths;
+    }
+
+    // Write the code for a symbol
+    public void write(BitWriter writer, int symbol) throws IOException {
+        writer.write(codes[symbol], lengths[symbol]);
+    }
+
+    // Read one symbol with a single table lookup
+    public int read(BitReader reader) throws IOException {
+        if (table == null) {
+            buildTable();
+        }
+        int entry = table[reader.peek(tableBits)];
+        if (entry < 0) {
+            throw new IOException("Invalid Huffman code in compressed data");
+        }
+        reader.consume(entry & 0xF);
+        return entry >>> 4;
+    }
+
+    // Every bit pattern that starts with a symbol's code maps to that symbol
+    private void buildTable() {
+        tableBits = 0;
+        for (int length : lengths) {
+            tableBits = Math.max(tableBits, length);
+        }
+        table = new int[1 << tableBits];
+        Arrays.fill(table, -1);
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            for (int pattern = codes[symbol]; length > 0 && pattern < table.length; pattern += 1 << length) {
+                table[pattern] = symbol << 4 | length;
+            }
+        }
+    }
+
+    // Huffman code lengths for the frequencies, limited to maxLength bits; unused symbols get length 0
+    public static int[] codeLengths(int[] frequencies, int maxLength) {
+        int[] lengths = new int[frequencies.length];
+
+        // Sort the used symbols by frequency, keeping the symbol in the low bits
+        long[] sorted = new long[frequencies.length];
+        int used = 0;
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            if (frequencies[symbol] > 0) {
+                sorted[used++] = (long) frequencies[symbol] << 32 | symbol;
+            }
+        }
+        if (used == 0) {
+            return lengths;
+        }
+        if (used == 1) {
+            lengths[(int) sorted[0]] = 1;
+            return lengths;
+        }
+        Arrays.sort(sorted, 0, used);
+
+        // Two-queue construction: leaves come in sorted order and merged nodes are created in
+        // non-decreasing weight order, so the two lightest nodes are always at the queue fronts
+        int nodeCount = 2 * used - 1;
+        long[] weight = new long[nodeCount];
+        int[] parent = new int[nodeCount];
+        for (int i = 0; i < used; i++) {
+            weight[i] = sorted[i] >>> 32;
+        }
+        int leaf = 0;
+        int merged = used;
+        for (int node = used; node < nodeCount; node++) {
+            for (int pick = 0; pick < 2; pick++) {
+                int child = leaf < used && (merged >= node || weight[leaf] <= weight[merged]) ? leaf++ : merged++;
+                parent[child] = node;
+                weight[node] += weight[child];
+            }
+        }
+
+        // Depth of every node, working down from the root
+        int[] depth = new int[nodeCount];
+        int[] lengthCounts = new int[Math.max(maxLength, used) + 1];
+        for (int node = nodeCount - 2; node >= 0; node--) {
+            depth[node] = depth[parent[node]] + 1;
+        }
+        for (int i = 0; i < used; i++) {
+            lengthCounts[depth[i]]++;
+        }
+
+        // Fold codes deeper than maxLength into it, then lengthen shorter codes until the code is complete
+        for (int length = maxLength + 1; length < lengthCounts.length; length++) {
+            lengthCounts[maxLength] += lengthCounts[length];
+            lengthCounts[length] = 0;
+        }
+        long total = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            total += (long) lengthCounts[length] << (maxLength - length);
+        }
+        while (total > 1L << maxLength) {
+            lengthCounts[maxLength]--;
+            for (int length = maxLength - 1; length > 0; length--) {
+                if (lengthCounts[length] > 0) {
+                    lengthCounts[length]--;
+                    lengthCounts[length + 1] += 2;
+                    break;
+                }
+            }
+            total--;
+        }
+
+        // Hand out the lengths, longest to the least frequent symbols
+        int i = 0;
+        for (int length = maxLength; length > 0; length--) {
+            for (int count = lengthCounts[length]; count > 0; count--) {
+                lengths[(int) sorted[i++]] = length;
+            }
+        }
+        return lengths;
+    }
+
+    // Canonical codes for the lengths, bit-reversed for least-significant-bit-first output
+    private static int[] canonicalCodes(int[] lengths) {
+        int maxLength = 0;
+        for (int length : lengths) {
+            maxLength = Math.max(maxLength, length);
+        }
+        int[] lengthCounts = new int[maxLength + 1];
+        for (int length : lengths) {
+            lengthCounts[length]++;
+        }
+        lengthCounts[0] = 0;
+
+        int[] nextCode = new int[maxLength + 1];
+        int code = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            code = (code + lengthCounts[length - 1]) << 1;
+            nextCode[length] = code;
+        }
+
+        int[] codes = new int[lengths.length];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > 0) {
+                codes[symbol] = Integer.reverse(nextCode[length]++) >>> (32 - length);
+            }
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,75 @@
+// Speed/ratio presets for the byte-level LZ77 engine, modelled on zlib's levels 1 to 9.
+// Each level sets how many chain entries a search may visit, the match length that is good enough
+// to stop searching, and whether lazy matching checks the next position before committing to a
+// match. Fast levels skip lazy matching and do not index the inside of long matches.
+public final class CompressionLevel {
+    public static final int MIN_LEVEL = 1;
+    public static final int MAX_LEVEL = 9;
+    public static final int DEFAULT_LEVEL = 6;
+
+    private static final CompressionLevel[] LEVELS = {
+            //                   level good lazy nice chain  lazy matching
+            new CompressionLevel(1, 4, 4, 8, 4, false),
+            new CompressionLevel(2, 4, 5, 16, 8, false),
+            new CompressionLevel(3, 4, 6, 32, 32, false),
+            new CompressionLevel(4, 4, 4, 16, 16, true),
+            new CompressionLevel(5, 8, 16, 32, 32, true),
+            new CompressionLevel(6, 8, 16, 128, 128, true),
+            new CompressionLevel(7, 8, 32, 128, 256, true),
+            new CompressionLevel(8, 32, 128, 258, 1024, true),
+            new CompressionLevel(9, 32, 258, 258, 4096, true)
+    };
+
+    final int level;
+    final int goodLength;    // A lazy search after a match this long only visits a quarter of the chain
+    final int maxLazy;       // Lazy levels: only look for a better match after a shorter one
+                             // Fast levels: only index the positions inside matches up to this long
+    final int niceLength;    // Stop searching once a match is this long
+    final int maxChainDepth; // Chain entries visited per search
+    final boolean lazyMatching;
+
+    CompressionLevel(int level, int goodLength, int maxLazy, int niceLength, int maxChainDepth, boolean lazyMatching) {
+        this.level = level;
+        this.goodLength = goodLength;
+        this.maxLazy = maxLazy;
+        this.niceLength = niceLength;
+        this.maxChainDepth = maxChainDepth;
+        this.lazyMatching = lazyMatching;
+    }
+
+    // The preset for a level from 1 (fastest) to 9 (best ratio)
+    public static CompressionLevel of(int level) {
+        if (level < MIN_LEVEL || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Compression level must be between " + MIN_LEVEL + " and "
+                    + MAX_LEVEL + ": " + level);
+        }
+        return LEVELS[level - 1];
+    }
+
+    // Plain greedy search: follow up to maxChainDepth chain entries, stop only at a full-length match
+    // and index every position, which is what the engines did before levels existed
+    static CompressionLevel greedy(int bufferSize, int maxChainDepth) {
+        return new CompressionLevel(0, bufferSize, Integer.MAX_VALUE, bufferSize, maxChainDepth, false);
+    }
+
+    public int level() {
+        return level;
+    }
+
+    public int maxChainDepth() {
+        return maxChainDepth;
+    }
+
+    public int niceLength() {
+        return niceLength;
+    }
+
+    public boolean lazyMatching() {
+        return lazyMatching;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionLevel(" + level + ")";
+    }
+}
@@ -0,0 +1,210 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// DEFLATE-style entropy stage for ByteLZ77 tokens. Each token becomes a length symbol and an offset
+// symbol (matches only) followed by its literal, and every block of tokens gets its own canonical
+// Huffman tables for literal/length symbols and for offset symbols.
+//
+// Lengths and offsets share one bucketing scheme: values 1 to 4 have their own symbols, and after
+// that each pair of symbols doubles the range, with the position inside a bucket sent as extra bits.
+//
+// Stream format: a header with the decompressed length, then blocks. A block starts with a final
+// block flag and the two tables as 4-bit code lengths (a zero is followed by a 4-bit count of
+// further zeros), then its symbols, and ends with the end-of-block symbol.
+public class DeflateLZ77 {
+    public static final int BLOCK_TOKENS = 1 << 16;
+
+    private static final int MAGIC = 0x4C5A3748; // "LZ7H"
+    private static final int VERSION = 1;
+    private static final int MAX_CODE_LENGTH = 15;
+    private static final int END_OF_BLOCK = 256;
+    private static final int FIRST_LENGTH_SYMBOL = 257;
+    private static final int VALUE_SYMBOLS = 62; // Enough buckets for any positive int
+    private static final int LITERAL_LENGTH_SYMBOLS = FIRST_LENGTH_SYMBOL + VALUE_SYMBOLS;
+
+    // Compress input with a 32 KB window, 258-byte lookahead and the given level
+    public static byte[] compress(byte[] input, CompressionLevel level) {
+        TokenBuffer tokens = new TokenBuffer(input.length);
+        new ByteLZ77(1 << 15, 258, level).compress(input, 0, input.length, tokens);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 3 + 64);
+        try {
+            write(tokens, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Decompress data written by compress or write
+    public static byte[] decompress(byte[] compressed) throws IOException {
+        return read(new ByteArrayInputStream(compressed));
+    }
+
+    // Entropy-code tokens onto out
+    public static void write(TokenBuffer tokens, OutputStream out) throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeLong(tokens.decodedLength());
+
+        BitWriter writer = new BitWriter(out);
+        int start = 0;
+        do {
+            int end = Math.min(tokens.size, start + BLOCK_TOKENS);
+            writeBlock(tokens, start, end, end == tokens.size, writer);
+            start = end;
+        } while (start < tokens.size);
+        writer.flush();
+    }
+
+    // Decode a stream written by write straight into the decompressed bytes
+    public static byte[] read(InputStream in) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not an LZ77 Huffman stream");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported LZ77 Huffman stream version: " + version);
+        }
+        long length = header.readLong();
+        if (length < 0 || length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Corrupt LZ77 Huffman stream length: " + length);
+        }
+
+        byte[] out = new byte[(int) length];
+        int position = 0;
+        BitReader reader = new BitReader(in);
+        boolean finalBlock;
+        do {
+            finalBlock = reader.read(1) == 1;
+            CanonicalHuffman literalCode = new CanonicalHuffman(readLengths(reader, LITERAL_LENGTH_SYMBOLS));
+            CanonicalHuffman offsetCode = new CanonicalHuffman(readLengths(reader, VALUE_SYMBOLS));
+
+            while (true) {
+                int symbol = literalCode.read(reader);
+                if (symbol < END_OF_BLOCK) {
+                    if (position == out.length) {
+                        throw new IOException("Corrupt LZ77 Huffman stream: too much data");
+                    }
+                    out[position++] = (byte) symbol;
+                } else if (symbol == END_OF_BLOCK) {
+                    break;
+                } else {
+                    int matchLength = readValue(reader, symbol - FIRST_LENGTH_SYMBOL);
+                    int offset = readValue(reader, offsetCode.read(reader));
+                    if (matchLength > out.length - position || offset > position) {
+                        throw new IOException("Corrupt LZ77 Huffman stream: match outside the data");
+                    }
+                    ByteLZ77.copyMatch(out, position, offset, matchLength);
+                    position += matchLength;
+                }
+            }
+        } while (!finalBlock);
+
+        if (position != out.length) {
+            throw new IOException("Corrupt LZ77 Huffman stream: expected " + out.length + " bytes, got " + position);
+        }
+        return out;
+    }
+
+    private static void writeBlock(TokenBuffer tokens, int start, int end, boolean finalBlock, BitWriter writer)
+            throws IOException {
+        // Count the symbols of the block
+        int[] literalFrequencies = new int[LITERAL_LENGTH_SYMBOLS];
+        int[] offsetFrequencies = new int[VALUE_SYMBOLS];
+        for (int i = start; i < end; i++) {
+            if (tokens.lengths[i] > 0) {
+                literalFrequencies[FIRST_LENGTH_SYMBOL + symbolOf(tokens.lengths[i])]++;
+                offsetFrequencies[symbolOf(tokens.offsets[i])]++;
+            }
+            if (tokens.literals[i] >= 0) {
+                literalFrequencies[tokens.literals[i]]++;
+            }
+        }
+        literalFrequencies[END_OF_BLOCK]++;
+
+        CanonicalHuffman literalCode = CanonicalHuffman.fromFrequencies(literalFrequencies, MAX_CODE_LENGTH);
+        CanonicalHuffman offsetCode = CanonicalHuffman.fromFrequencies(offsetFrequencies, MAX_CODE_LENGTH);
+        writer.write(finalBlock ? 1 : 0, 1);
+        writeLengths(writer, literalCode.lengths());
+        writeLengths(writer, offsetCode.lengths());
+
+        for (int i = start; i < end; i++) {
+            int length = tokens.lengths[i];
+            if (length > 0) {
+                int lengthSymbol = symbolOf(length);
+                literalCode.write(writer, FIRST_LENGTH_SYMBOL + lengthSymbol);
+                writer.write(length - 1 - baseOf(lengthSymbol), extraBitsOf(lengthSymbol));
+                int offsetSymbol = symbolOf(tokens.offsets[i]);
+                offsetCode.write(writer, offsetSymbol);
+                writer.write(tokens.offsets[i] - 1 - baseOf(offsetSymbol), extraBitsOf(offsetSymbol));
+            }
+            if (tokens.literals[i] >= 0) {
+                literalCode.write(writer, tokens.literals[i]);
+            }
+        }
+        literalCode.write(writer, END_OF_BLOCK);
+    }
+
+    // Code lengths as 4-bit values, with each zero followed by a 4-bit count of further zeros
+    private static void writeLengths(BitWriter writer, int[] lengths) throws IOException {
+        for (int i = 0; i < lengths.length; i++) {
+            writer.write(lengths[i], 4);
+            if (lengths[i] == 0) {
+                int run = 0;
+                while (run < 15 && i + 1 < lengths.length && lengths[i + 1] == 0) {
+                    run++;
+                    i++;
+                }
+                writer.write(run, 4);
+            }
+        }
+    }
+
+    private static int[] readLengths(BitReader reader, int count) throws IOException {
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = reader.read(4);
+            if (lengths[i] == 0) {
+                i += reader.read(4);
+            }
+        }
+        return lengths;
+    }
+
+    private static int readValue(BitReader reader, int symbol) throws IOException {
+        if (symbol >= VALUE_SYMBOLS) {
+            throw new IOException("Corrupt LZ77 Huffman stream: bad length or offset symbol");
+        }
+        return baseOf(symbol) + reader.read(extraBitsOf(symbol)) + 1;
+    }
+
+    // Bucket symbol for a positive length or offset
+    private static int symbolOf(int value) {
+        int x = value - 1;
+        if (x < 4) {
+            return x;
+        }
+        int highBit = 31 - Integer.numberOfLeadingZeros(x);
+        return 2 * highBit + ((x >>> (highBit - 1)) & 1);
+    }
+
+    // Smallest value - 1 in a bucket
+    private static int baseOf(int symbol) {
+        if (symbol < 4) {
+            return symbol;
+        }
+        return (2 | (symbol & 1)) << (symbol / 2 - 1);
+    }
+
+    private static int extraBitsOf(int symbol) {
+        return symbol < 4 ? 0 : symbol / 2 - 1;
+    }
+}
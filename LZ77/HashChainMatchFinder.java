@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+// Match finder that indexes 3-character prefixes with hash chains, so each search only visits
+// earlier positions that share the same prefix instead of the whole window
+public class HashChainMatchFinder implements MatchFinder {
+    public static final int DEFAULT_CHAIN_DEPTH = 64;
+
+    private static final int MIN_MATCH = 3;
+    private static final int HASH_BITS = 15;
+    private static final int SHORT_HASH_BITS = 12;
+
+    private final int maxChainDepth;
+    private final int[] head = new int[1 << HASH_BITS];        // Most recent position for each 3-character hash
+    private final int[] head2 = new int[1 << SHORT_HASH_BITS]; // Most recent position for each 2-character hash
+    private final int[] head1 = new int[1 << SHORT_HASH_BITS]; // Most recent position for each character
+    private int[] prev = new int[0]; // Previous position with the same hash, indexed by position & chainMask
+    private int chainMask;
+    private char[] data;
+    private int windowSize;
+    private int offset;
+
+    public HashChainMatchFinder() {
+        this(DEFAULT_CHAIN_DEPTH);
+    }
+
+    // maxChainDepth bounds how many earlier positions are compared per search
+    public HashChainMatchFinder(int maxChainDepth) {
+        if (maxChainDepth < 1) {
+            throw new IllegalArgumentException("Chain depth must be positive: " + maxChainDepth);
+        }
+        this.maxChainDepth = maxChainDepth;
+    }
+
+    @Override
+    public void reset(char[] data, int windowSize) {
+        this.data = data;
+        this.windowSize = windowSize;
+        this.offset = 0;
+
+        // The chain only has to remember positions that are still inside the window
+        int chainSize = Integer.highestOneBit(Math.max(1, Math.min(windowSize, data.length)) * 2 - 1);
+        if (prev.length != chainSize) {
+            prev = new int[chainSize];
+        }
+        chainMask = chainSize - 1;
+        Arrays.fill(prev, -1);
+        Arrays.fill(head, -1);
+        Arrays.fill(head2, -1);
+        Arrays.fill(head1, -1);
+    }
+
+    @Override
+    public int find(int position, int maxLength) {
+        int lowest = Math.max(0, position - windowSize);
+        int bestLength = 0;
+        int bestOffset = 0;
+
+        // Walk the chain of earlier positions that share the same 3-character prefix
+        if (maxLength >= MIN_MATCH) {
+            int candidate = head[hash3(position)];
+            int depth = maxChainDepth;
+            while (candidate >= lowest && depth-- > 0) {
+                // Skip candidates that cannot beat the current best
+                if (data[candidate + bestLength] == data[position + bestLength]) {
+                    int length = matchLength(candidate, position, maxLength);
+                    if (length > bestLength) {
+                        bestLength = length;
+                        bestOffset = position - candidate;
+                        if (length == maxLength) {
+                            break;
+                        }
+                    }
+                }
+                candidate = prev[candidate & chainMask];
+            }
+        }
+
+        // Short matches still save a tag, so fall back to the most recent 2- and 1-character occurrences
+        if (bestLength < 2 && maxLength >= 2) {
+            int candidate = head2[hash2(position)];
+            if (candidate >= lowest && data[candidate] == data[position] && data[candidate + 1] == data[position + 1]) {
+                bestLength = 2;
+                bestOffset = position - candidate;
+            }
+        }
+        if (bestLength < 1 && maxLength >= 1) {
+            int candidate = head1[data[position] & ((1 << SHORT_HASH_BITS) - 1)];
+            if (candidate >= lowest && data[candidate] == data[position]) {
+                bestLength = 1;
+                bestOffset = position - candidate;
+            }
+        }
+
+        insert(position);
+        offset = bestOffset;
+        return bestLength;
+    }
+
+    @Override
+    public int offset() {
+        return offset;
+    }
+
+    @Override
+    public void skip(int position) {
+        insert(position);
+    }
+
+    // Add a position to the hash tables
+    private void insert(int position) {
+        head1[data[position] & ((1 << SHORT_HASH_BITS) - 1)] = position;
+        if (position + 1 < data.length) {
+            head2[hash2(position)] = position;
+        }
+        if (position + 2 < data.length) {
+            int h = hash3(position);
+            prev[position & chainMask] = head[h];
+            head[h] = position;
+        }
+    }
+
+    // Length of the common prefix of the text at candidate and position, compared in bulk
+    // so long matches do not cost one branch per character
+    private int matchLength(int candidate, int position, int maxLength) {
+        int mismatch = Arrays.mismatch(data, candidate, candidate + maxLength, data, position, position + maxLength);
+        return mismatch < 0 ? maxLength : mismatch;
+    }
+
+    private int hash3(int position) {
+        int key = (data[position] * 31 + data[position + 1]) * 31 + data[position + 2];
+        return (key * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+
+    private int hash2(int position) {
+        int key = data[position] * 31 + data[position + 1];
+        return (key * 0x9E3779B1) >>> (32 - SHORT_HASH_BITS);
+    }
+}
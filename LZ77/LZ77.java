@@ -1,6 +1,11 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class LZ77 {
+    // Longest match a tag can describe unless a lookahead buffer size is given
+    public static final int DEFAULT_BUFFER_SIZE = 5;
 
     // Tag class to represent data
     public static class Tag {
@@ -24,44 +29,48 @@ public class LZ77 {
 
     // Compress text into tags
     public static ArrayList<Tag> compress(String input, int windowSize) {
+        return compress(input, windowSize, DEFAULT_BUFFER_SIZE);
+    }
+
+    // Compress text into tags whose matches are at most bufferSize characters long
+    public static ArrayList<Tag> compress(String input, int windowSize, int bufferSize) {
+        return compress(input, windowSize, bufferSize, new BruteForceMatchFinder());
+    }
+
+    // Compress text into tags, using the given match finder to search the window
+    public static ArrayList<Tag> compress(String input, int windowSize, MatchFinder matchFinder) {
+        return compress(input, windowSize, DEFAULT_BUFFER_SIZE, matchFinder);
+    }
+
+    // Compress text into tags of at most bufferSize matched characters, using the given match finder
+    public static ArrayList<Tag> compress(String input, int windowSize, int bufferSize, MatchFinder matchFinder) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
         ArrayList<Tag> tags = new ArrayList<>();
-        int bufferSize = 5;
+        char[] data = input.toCharArray();
         int currentIndex = 0;
+        matchFinder.reset(data, windowSize);
 
-        while (currentIndex < input.length()) {
-            int bestMatchOffset = -1;
-            int bestMatchLength = 0;
-
+        while (currentIndex < data.length) {
             // Search for the best match in the search buffer
-            for (int i = Math.max(0, currentIndex - windowSize); i < currentIndex; i++) {
-                int j = i; // Position of sliding window
-                int k = currentIndex; // Position of the lookahead buffer
-                int length = 0;
-
-                // Compare characters in search buffer and lookahead buffer
-                while (k < input.length() && input.charAt(j) == input.charAt(k) && length < bufferSize) {
-                    j++;
-                    k++;
-                    length++;
-                }
-
-                // Update if a better match is found
-                if (length > bestMatchLength) {
-                    bestMatchLength = length;
-                    bestMatchOffset = currentIndex - i;
-                }
-            }
+            int bestMatchLength = matchFinder.find(currentIndex, Math.min(bufferSize, data.length - currentIndex));
 
             if (bestMatchLength > 0) {
                 // Create a tag when we find a match
-                Character nextChar = currentIndex + bestMatchLength < input.length() ?
-                        input.charAt(currentIndex + bestMatchLength) : null;
-                Tag tag = new Tag(bestMatchOffset, bestMatchLength, nextChar);
+                Character nextChar = currentIndex + bestMatchLength < data.length ?
+                        data[currentIndex + bestMatchLength] : null;
+                Tag tag = new Tag(matchFinder.offset(), bestMatchLength, nextChar);
                 tags.add(tag);
+
+                // Index the positions covered by the tag so later matches can refer back to them
+                for (int i = currentIndex + 1; i <= currentIndex + bestMatchLength && i < data.length; i++) {
+                    matchFinder.skip(i);
+                }
                 currentIndex += bestMatchLength + 1;  // Move past the matched part
             } else {
                 // No match, create a tag with length 0
-                Tag tag = new Tag(0, 0, input.charAt(currentIndex));
+                Tag tag = new Tag(0, 0, data[currentIndex]);
                 tags.add(tag);
                 currentIndex++;
             }
@@ -70,27 +79,155 @@ public class LZ77 {
         return tags;
     }
 
+    // Compress text into tags chosen by optimal parsing instead of greedy longest matches
+    public static ArrayList<Tag> compressOptimal(String input, int windowSize) {
+        return compressOptimal(input, windowSize, DEFAULT_BUFFER_SIZE);
+    }
+
+    // Compress text by optimal parsing into tags of at most bufferSize matched characters
+    public static ArrayList<Tag> compressOptimal(String input, int windowSize, int bufferSize) {
+        return compressOptimal(input, windowSize, bufferSize, new BinaryTreeMatchFinder());
+    }
+
+    // Compress text by optimal parsing, using the given match finder to search the window
+    public static ArrayList<Tag> compressOptimal(String input, int windowSize, BinaryTreeMatchFinder matchFinder) {
+        return compressOptimal(input, windowSize, DEFAULT_BUFFER_SIZE, matchFinder);
+    }
+
+    // Compress text into the sequence of tags that takes the fewest bits in LZ77Format, with ties
+    // broken towards shorter offsets. Tags are priced with the widths the container would use for
+    // the whole window and lookahead, so short matches lose to literals when they cost more.
+    // Needs the matches of every position, so it trades CPU and O(n) memory for ratio.
+    public static ArrayList<Tag> compressOptimal(String input, int windowSize, int bufferSize,
+                                                 BinaryTreeMatchFinder matchFinder) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        char[] data = input.toCharArray();
+        matchFinder.reset(data, windowSize);
+
+        // Widths of the offset, length and next character fields of a tag in the container
+        int offsetBits = LZ77Format.bitsFor(Math.max(0, Math.min(windowSize, data.length)));
+        int lengthBits = LZ77Format.bitsFor(Math.min(bufferSize, data.length));
+        int charBits = 8;
+        for (char c : data) {
+            if (c > 0xFF) {
+                charBits = 16;
+                break;
+            }
+        }
+        int literalBits = LZ77Format.tagBits(0, true, offsetBits, lengthBits, charBits);
+
+        // cost[i] is the cheapest way to encode the first i characters, reached by a tag
+        // starting at tagStart[i] with the given length and offset
+        long[] cost = new long[data.length + 1];
+        int[] tagStart = new int[data.length + 1];
+        int[] tagLength = new int[data.length + 1];
+        int[] tagOffset = new int[data.length + 1];
+        Arrays.fill(cost, Long.MAX_VALUE);
+        cost[0] = 0;
+
+        for (int currentIndex = 0; currentIndex < data.length; currentIndex++) {
+            int matchCount = matchFinder.findMatches(currentIndex, Math.min(bufferSize, data.length - currentIndex));
+
+            // A literal tag always works
+            relax(cost, tagStart, tagLength, tagOffset, currentIndex, currentIndex + 1, 0, 0, literalBits);
+
+            // Any prefix of a match can be used, with the offset of the shortest match covering it;
+            // a match that reaches the end of the text has no next character
+            int length = 1;
+            for (int m = 0; m < matchCount; m++) {
+                int offset = matchFinder.matchOffset(m);
+                for (; length <= matchFinder.matchLength(m); length++) {
+                    int end = Math.min(currentIndex + length + 1, data.length);
+                    int bits = LZ77Format.tagBits(length, end > currentIndex + length, offsetBits, lengthBits, charBits);
+                    relax(cost, tagStart, tagLength, tagOffset, currentIndex, end, length, offset, bits);
+                }
+            }
+        }
+
+        // Walk back from the end to recover the chosen tags
+        ArrayList<Tag> tags = new ArrayList<>();
+        for (int end = data.length; end > 0; end = tagStart[end]) {
+            int matchEnd = tagStart[end] + tagLength[end];
+            Character nextChar = matchEnd < data.length ? data[matchEnd] : null;
+            tags.add(new Tag(tagOffset[end], tagLength[end], nextChar));
+        }
+        Collections.reverse(tags);
+        return tags;
+    }
+
+    // Record the tag from start to end if it is cheaper than the best path found so far. The cost
+    // keeps the bits in the high half and the offset widths, as a tiebreak, in the low half.
+    private static void relax(long[] cost, int[] tagStart, int[] tagLength, int[] tagOffset,
+                              int start, int end, int length, int offset, int bits) {
+        long tagCost = cost[start] + ((long) bits << 32) + (32 - Integer.numberOfLeadingZeros(offset));
+        if (tagCost < cost[end]) {
+            cost[end] = tagCost;
+            tagStart[end] = start;
+            tagLength[end] = length;
+            tagOffset[end] = offset;
+        }
+    }
+
     // Decompress a list of tags to the original string
-    public static String decompress(ArrayList<Tag> tags) {
-        StringBuilder decompressed = new StringBuilder();
+    public static String decompress(List<Tag> tags) {
+        char[] decompressed = new char[decompressedLength(tags)];
+        decompress(tags, decompressed, 0);
+        return new String(decompressed);
+    }
+
+    // Decompress tags into out starting at outOff, which must have room for decompressedLength(tags)
+    // characters; returns the number of characters written
+    public static int decompress(List<Tag> tags, char[] out, int outOff) {
+        int position = outOff;
 
         for (Tag tag : tags) {
             if (tag.length > 0) {
-                int startIndex = decompressed.length() - tag.offset;
-                int endIndex = startIndex + tag.length;
-
                 // Copy characters from the search buffer
-                for (int i = startIndex; i < endIndex; i++) {
-                    decompressed.append(decompressed.charAt(i));
-                }
+                copyMatch(out, position, tag.offset, tag.length);
+                position += tag.length;
             }
 
             // Append the next character
             if (tag.nextChar != null) {
-                decompressed.append(tag.nextChar);
+                out[position++] = tag.nextChar;
             }
         }
 
-        return decompressed.toString();
+        return position - outOff;
+    }
+
+    // Number of characters the tags expand to
+    public static int decompressedLength(List<Tag> tags) {
+        long length = 0;
+        for (Tag tag : tags) {
+            length += tag.length + (tag.nextChar != null ? 1 : 0);
+        }
+        return Math.toIntExact(length);
+    }
+
+    // Copy length characters starting offset characters back to position. A match whose offset is
+    // shorter than its length repeats the last offset characters, so the copy doubles the repeated
+    // part each step instead of going one character at a time.
+    private static void copyMatch(char[] out, int position, int offset, int length) {
+        int from = position - offset;
+        if (offset <= 0 || from < 0) {
+            throw new IllegalArgumentException("Tag offset " + offset + " points outside the decompressed text");
+        }
+
+        if (offset >= length) {
+            System.arraycopy(out, from, out, position, length);
+        } else if (offset == 1) {
+            Arrays.fill(out, position, position + length, out[from]);
+        } else {
+            // Copy whole periods so the source always starts at a period boundary
+            int copied = 0;
+            while (copied < length) {
+                int count = Math.min(offset + copied, length - copied);
+                System.arraycopy(out, from, out, position + copied, count);
+                copied += count;
+            }
+        }
     }
 }
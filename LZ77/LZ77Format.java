@@ -0,0 +1,176 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact binary container for LZ77 tags.
+// The header holds the bit widths and the tag count, then each tag is bit-packed as a 1-bit
+// match flag, the offset and length (matches only) and the next character. Offset and length
+// widths are sized to the largest values present, so they never exceed the window and lookahead.
+// Only the last tag may lack a next character, which is recorded in the header flags.
+public class LZ77Format {
+    private static final int MAGIC = 0x4C5A3737; // "LZ77"
+    private static final int VERSION = 1;
+    private static final int FLAG_LAST_WITHOUT_CHAR = 1;
+
+    // Write tags produced by LZ77.compress
+    public static void write(List<LZ77.Tag> tags, OutputStream out) throws IOException {
+        int maxOffset = 0;
+        int maxLength = 0;
+        int maxChar = 0;
+        for (int i = 0; i < tags.size(); i++) {
+            LZ77.Tag tag = tags.get(i);
+            maxOffset = Math.max(maxOffset, tag.offset);
+            maxLength = Math.max(maxLength, tag.length);
+            if (tag.nextChar != null) {
+                maxChar = Math.max(maxChar, tag.nextChar);
+            } else if (i != tags.size() - 1) {
+                throw new IllegalArgumentException("Only the last tag may have no next character");
+            }
+        }
+
+        boolean lastWithoutChar = !tags.isEmpty() && tags.get(tags.size() - 1).nextChar == null;
+        int offsetBits = bitsFor(maxOffset);
+        int lengthBits = bitsFor(maxLength);
+        int charBits = maxChar > 0xFF ? 16 : 8;
+        DataOutputStream header = new DataOutputStream(out);
+        writeHeader(header, offsetBits, lengthBits, charBits, lastWithoutChar, tags.size());
+
+        BitWriter writer = new BitWriter(out);
+        for (LZ77.Tag tag : tags) {
+            writeTag(writer, tag.offset, tag.length, tag.nextChar != null ? tag.nextChar : -1,
+                    offsetBits, lengthBits, charBits);
+        }
+        writer.flush();
+    }
+
+    // Read tags written by write(List, OutputStream)
+    public static ArrayList<LZ77.Tag> read(InputStream in) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        int[] widths = readHeader(header);
+        int count = header.readInt();
+        boolean lastWithoutChar = (widths[3] & FLAG_LAST_WITHOUT_CHAR) != 0;
+
+        ArrayList<LZ77.Tag> tags = new ArrayList<>(count);
+        BitReader reader = new BitReader(in);
+        for (int i = 0; i < count; i++) {
+            boolean hasChar = i != count - 1 || !lastWithoutChar;
+            int offset = 0;
+            int length = 0;
+            if (reader.read(1) == 1) {
+                offset = reader.read(widths[0]);
+                length = reader.read(widths[1]);
+            }
+            Character nextChar = hasChar ? (char) reader.read(widths[2]) : null;
+            tags.add(new LZ77.Tag(offset, length, nextChar));
+        }
+        return tags;
+    }
+
+    // Write tokens produced by ByteLZ77, in the same container with 8-bit literals
+    public static void write(TokenBuffer tokens, OutputStream out) throws IOException {
+        int maxOffset = 0;
+        int maxLength = 0;
+        for (int i = 0; i < tokens.size; i++) {
+            maxOffset = Math.max(maxOffset, tokens.offsets[i]);
+            maxLength = Math.max(maxLength, tokens.lengths[i]);
+            if (tokens.literals[i] < 0 && i != tokens.size - 1) {
+                throw new IllegalArgumentException("Only the last token may have no literal");
+            }
+        }
+
+        boolean lastWithoutChar = tokens.size > 0 && tokens.literals[tokens.size - 1] < 0;
+        int offsetBits = bitsFor(maxOffset);
+        int lengthBits = bitsFor(maxLength);
+        DataOutputStream header = new DataOutputStream(out);
+        writeHeader(header, offsetBits, lengthBits, 8, lastWithoutChar, tokens.size);
+
+        BitWriter writer = new BitWriter(out);
+        for (int i = 0; i < tokens.size; i++) {
+            writeTag(writer, tokens.offsets[i], tokens.lengths[i], tokens.literals[i], offsetBits, lengthBits, 8);
+        }
+        writer.flush();
+    }
+
+    // Read tokens written by write(TokenBuffer, OutputStream), replacing the contents of tokens
+    public static void read(InputStream in, TokenBuffer tokens) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        int[] widths = readHeader(header);
+        int count = header.readInt();
+        boolean lastWithoutChar = (widths[3] & FLAG_LAST_WITHOUT_CHAR) != 0;
+        if (widths[2] != 8) {
+            throw new IOException("Tokens hold bytes, but the file stores " + widths[2] + "-bit characters");
+        }
+
+        tokens.clear();
+        tokens.ensureCapacity(count);
+        BitReader reader = new BitReader(in);
+        for (int i = 0; i < count; i++) {
+            int offset = 0;
+            int length = 0;
+            if (reader.read(1) == 1) {
+                offset = reader.read(widths[0]);
+                length = reader.read(widths[1]);
+            }
+            int literal = i != count - 1 || !lastWithoutChar ? reader.read(8) : -1;
+            tokens.add(offset, length, literal);
+        }
+    }
+
+    private static void writeTag(BitWriter writer, int offset, int length, int nextChar,
+                                 int offsetBits, int lengthBits, int charBits) throws IOException {
+        if (length > 0) {
+            writer.write(1, 1);
+            writer.write(offset, offsetBits);
+            writer.write(length, lengthBits);
+        } else {
+            writer.write(0, 1);
+        }
+        if (nextChar >= 0) {
+            writer.write(nextChar, charBits);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream header, int offsetBits, int lengthBits, int charBits,
+                                    boolean lastWithoutChar, int count) throws IOException {
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(offsetBits);
+        header.writeByte(lengthBits);
+        header.writeByte(charBits);
+        header.writeByte(lastWithoutChar ? FLAG_LAST_WITHOUT_CHAR : 0);
+        header.writeInt(count);
+    }
+
+    // Read and validate the header up to the tag count; returns offset, length and char widths and the flags
+    private static int[] readHeader(DataInputStream header) throws IOException {
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not an LZ77 file");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported LZ77 format version: " + version);
+        }
+        int offsetBits = header.readUnsignedByte();
+        int lengthBits = header.readUnsignedByte();
+        int charBits = header.readUnsignedByte();
+        int flags = header.readUnsignedByte();
+        if (offsetBits > 31 || lengthBits > 31 || (charBits != 8 && charBits != 16)) {
+            throw new IOException("Corrupt LZ77 header");
+        }
+        return new int[] {offsetBits, lengthBits, charBits, flags};
+    }
+
+    // Bits a tag takes with the given field widths, for pricing parses
+    static int tagBits(int length, boolean hasChar, int offsetBits, int lengthBits, int charBits) {
+        return 1 + (length > 0 ? offsetBits + lengthBits : 0) + (hasChar ? charBits : 0);
+    }
+
+    // Number of bits needed to store values up to max
+    static int bitsFor(int max) {
+        return 32 - Integer.numberOfLeadingZeros(max);
+    }
+}
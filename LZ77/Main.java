@@ -11,6 +11,8 @@ public class Main {
 
         System.out.println("1) Compress");
         System.out.println("2) Decompress");
+        System.out.println("3) Compress a File (streaming)");
+        System.out.println("4) Decompress a File (streaming)");
         int operationChoice = in.nextInt();
 
         in.nextLine(); // Consume newline character
@@ -27,7 +29,7 @@ public class Main {
             if (writeChoice == 1) {
                 // Construct the file path to the user's desktop
                 String desktopPath = System.getProperty("user.home") + File.separator + "Desktop";
-                String filePath = desktopPath + File.separator + "compressedFile.txt";
+                String filePath = desktopPath + File.separator + "compressedFile.lz77";
 
                 ArrayList<LZ77.Tag> compressed = LZ77.compress(input, windowSize);
                 if (writeTagsToFile(filePath, compressed)) {
@@ -42,22 +44,23 @@ public class Main {
                 System.out.println("Invalid choice");
             }
         } else if (operationChoice == 2) {
-            System.out.print("Enter the number of tags: ");
-            int numTags = in.nextInt();
+            System.out.println("1) Read from a File");
+            System.out.println("2) Enter Tags Manually");
+            int readChoice = in.nextInt();
             in.nextLine(); // Consume newline character
 
-            ArrayList<LZ77.Tag> tags = new ArrayList<>();
-            for (int i = 0; i < numTags; i++) {
-                System.out.print("Enter tag (Offset Length NextCharacter, or 'null' for no character): ");
-                String tagInput = in.nextLine();
-                String[] tagParts = tagInput.split(" ");
-                if (tagParts.length == 3) {
-                    int offset = Integer.parseInt(tagParts[0]);
-                    int length = Integer.parseInt(tagParts[1]);
-                    char nextChar = tagParts[2].equals("null") ? '\0' : tagParts[2].charAt(0);
-                    LZ77.Tag tag = new LZ77.Tag(offset, length, nextChar);
-                    tags.add(tag);
+            ArrayList<LZ77.Tag> tags;
+            if (readChoice == 1) {
+                System.out.print("Enter the compressed file path: ");
+                tags = readTagsFromFile(in.nextLine());
+                if (tags == null) {
+                    return;
                 }
+            } else if (readChoice == 2) {
+                tags = readTagsFromConsole();
+            } else {
+                System.out.println("Invalid choice");
+                return;
             }
 
             System.out.println("1) Write to a File");
@@ -81,24 +84,77 @@ public class Main {
             } else {
                 System.out.println("Invalid choice");
             }
+        } else if (operationChoice == 3 || operationChoice == 4) {
+            System.out.print("Enter the input file path: ");
+            String inputPath = in.nextLine();
+            System.out.print("Enter the output file path: ");
+            String outputPath = in.nextLine();
+            int windowSize = operationChoice == 3 ? getInputWindowSize() : 0;
+
+            if (streamFile(inputPath, outputPath, windowSize)) {
+                System.out.println("File saved at: " + outputPath);
+            } else {
+                System.out.println("File not saved successfully.");
+            }
         } else {
             System.out.println("Invalid operation choice");
         }
     }
 
+    // Compress the file when a window size is given, otherwise decompress it
+    private static boolean streamFile(String inputPath, String outputPath, int windowSize) {
+        try (InputStream input = new FileInputStream(inputPath);
+             OutputStream output = new BufferedOutputStream(new FileOutputStream(outputPath))) {
+            if (windowSize > 0) {
+                new StreamingLZ77(windowSize).compress(input, output);
+            } else {
+                StreamingLZ77.decompress(input, output);
+            }
+            return true; // File saved successfully
+        } catch (IOException e) {
+            System.out.println("Error processing file: " + e.getMessage());
+            return false; // File not saved successfully
+        }
+    }
+
     private static int getInputWindowSize() {
         System.out.print("Enter the window size: ");
         return in.nextInt();
     }
 
-    private static boolean writeTagsToFile(String filePath, ArrayList<LZ77.Tag> tags) {
-        try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter(filePath));
-            for (LZ77.Tag tag : tags) {
-                writer.write(tag.toString());
-                writer.newLine(); // Add a newline between tags
+    private static ArrayList<LZ77.Tag> readTagsFromConsole() {
+        System.out.print("Enter the number of tags: ");
+        int numTags = in.nextInt();
+        in.nextLine(); // Consume newline character
+
+        ArrayList<LZ77.Tag> tags = new ArrayList<>();
+        for (int i = 0; i < numTags; i++) {
+            System.out.print("Enter tag (Offset Length NextCharacter, or 'null' for no character): ");
+            String tagInput = in.nextLine();
+            String[] tagParts = tagInput.split(" ");
+            if (tagParts.length == 3) {
+                int offset = Integer.parseInt(tagParts[0]);
+                int length = Integer.parseInt(tagParts[1]);
+                char nextChar = tagParts[2].equals("null") ? '\0' : tagParts[2].charAt(0);
+                LZ77.Tag tag = new LZ77.Tag(offset, length, nextChar);
+                tags.add(tag);
             }
-            writer.close();
+        }
+        return tags;
+    }
+
+    private static ArrayList<LZ77.Tag> readTagsFromFile(String filePath) {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(filePath))) {
+            return LZ77Format.read(input);
+        } catch (IOException e) {
+            System.out.println("Error reading from file: " + e.getMessage());
+            return null; // File not read successfully
+        }
+    }
+
+    private static boolean writeTagsToFile(String filePath, ArrayList<LZ77.Tag> tags) {
+        try (OutputStream output = new FileOutputStream(filePath)) {
+            LZ77Format.write(tags, output);
             return true; // File saved successfully
         } catch (IOException e) {
             System.out.println("Error writing to file: " + e.getMessage());
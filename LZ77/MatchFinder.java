@@ -0,0 +1,15 @@
+// Searches the sliding window for back-references used by the LZ77 compressor
+public interface MatchFinder {
+    // Prepare the finder for a new input and window size
+    void reset(char[] data, int windowSize);
+
+    // Find the longest match (at most maxLength characters) for the lookahead starting at position,
+    // then index that position; returns the match length, or 0 when there is no match
+    int find(int position, int maxLength);
+
+    // Offset of the match returned by the last call to find
+    int offset();
+
+    // Index a position that was covered by a tag without searching from it
+    void skip(int position);
+}
@@ -0,0 +1,176 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Block-parallel LZ77. The input is cut into fixed-size blocks that are compressed independently
+// on a ForkJoinPool with ByteLZ77 and stored in a framed container that records every block size.
+//
+// With window priming, each block may also refer back to the last windowSize bytes of the block
+// before it, which recovers most of the ratio lost at block boundaries. Primed blocks are still
+// unpacked in parallel, but their matches are copied block after block, since each one needs the
+// decoded tail of the previous block.
+//
+// Container format: a header with the flags, block size, total length and block count, the
+// compressed size of each block, then the blocks, each in the LZ77Format token container.
+public class ParallelLZ77 {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private static final int MAGIC = 0x4C5A3750; // "LZ7P"
+    private static final int VERSION = 1;
+    private static final int FLAG_PRIMED = 1;
+    private static final int HEADER_SIZE = 18;
+
+    private final int windowSize;
+    private final int blockSize;
+    private final boolean primeWindow;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<ByteLZ77> engines;
+
+    public ParallelLZ77(int windowSize, int bufferSize, int maxChainDepth, int blockSize, boolean primeWindow) {
+        this(windowSize, bufferSize, maxChainDepth, blockSize, primeWindow, ForkJoinPool.commonPool());
+    }
+
+    public ParallelLZ77(int windowSize, int bufferSize, int maxChainDepth, int blockSize, boolean primeWindow,
+                        ForkJoinPool pool) {
+        this(windowSize, bufferSize, CompressionLevel.greedy(bufferSize, maxChainDepth), blockSize, primeWindow, pool);
+    }
+
+    public ParallelLZ77(int windowSize, int bufferSize, CompressionLevel level, int blockSize, boolean primeWindow) {
+        this(windowSize, bufferSize, level, blockSize, primeWindow, ForkJoinPool.commonPool());
+    }
+
+    public ParallelLZ77(int windowSize, int bufferSize, CompressionLevel level, int blockSize, boolean primeWindow,
+                        ForkJoinPool pool) {
+        if (windowSize < 1 || bufferSize < 1 || level.maxChainDepth < 1 || blockSize < 1) {
+            throw new IllegalArgumentException("Window size, buffer size, chain depth and block size must be positive");
+        }
+        this.windowSize = windowSize;
+        this.blockSize = blockSize;
+        this.primeWindow = primeWindow;
+        this.pool = pool;
+        // Engines are not thread-safe, so each worker keeps its own and reuses its tables
+        this.engines = ThreadLocal.withInitial(() -> new ByteLZ77(windowSize, bufferSize, level));
+    }
+
+    // Compress the input into a framed container
+    public byte[] compress(byte[] input) {
+        int blockCount = (input.length + blockSize - 1) / blockSize;
+
+        // Compress every block on its own task
+        List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            int off = i * blockSize;
+            int len = Math.min(blockSize, input.length - off);
+            int historyOff = primeWindow ? Math.max(0, off - windowSize) : off;
+            tasks.add(pool.submit(() -> compressBlock(input, historyOff, off, len)));
+        }
+
+        try {
+            ByteArrayOutputStream framed = new ByteArrayOutputStream(input.length / 2 + 64);
+            DataOutputStream header = new DataOutputStream(framed);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeByte(primeWindow ? FLAG_PRIMED : 0);
+            header.writeInt(blockSize);
+            header.writeInt(input.length);
+            header.writeInt(blockCount);
+
+            List<byte[]> blocks = new ArrayList<>(blockCount);
+            for (ForkJoinTask<byte[]> task : tasks) {
+                byte[] block = task.join();
+                blocks.add(block);
+                header.writeInt(block.length);
+            }
+            for (byte[] block : blocks) {
+                framed.write(block);
+            }
+            return framed.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Decompress a container written by compress, on the given pool
+    public static byte[] decompress(byte[] framed, ForkJoinPool pool) throws IOException {
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(framed));
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a parallel LZ77 container");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported parallel LZ77 version: " + version);
+        }
+        boolean primed = (header.readUnsignedByte() & FLAG_PRIMED) != 0;
+        int blockSize = header.readInt();
+        int length = header.readInt();
+        int blockCount = header.readInt();
+        if (blockSize < 1 || length < 0 || blockCount != (int) (((long) length + blockSize - 1) / blockSize)) {
+            throw new IOException("Corrupt parallel LZ77 header");
+        }
+
+        int[] blockStarts = new int[blockCount + 1];
+        blockStarts[0] = HEADER_SIZE + 4 * blockCount;
+        for (int i = 0; i < blockCount; i++) {
+            blockStarts[i + 1] = blockStarts[i] + header.readInt();
+        }
+        if (blockStarts[blockCount] > framed.length) {
+            throw new IOException("Truncated parallel LZ77 container");
+        }
+
+        // Unpack every block's tokens on its own task; unprimed blocks are decoded right away
+        byte[] out = new byte[length];
+        List<ForkJoinTask<TokenBuffer>> tasks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            int index = i;
+            tasks.add(pool.submit(() -> {
+                TokenBuffer tokens = readBlock(framed, blockStarts[index], blockStarts[index + 1]);
+                if (!primed) {
+                    decodeBlock(tokens, out, index * blockSize, Math.min(blockSize, length - index * blockSize));
+                }
+                return tokens;
+            }));
+        }
+
+        for (int i = 0; i < blockCount; i++) {
+            TokenBuffer tokens = tasks.get(i).join();
+            if (primed) {
+                // Each block needs the decoded tail of the one before it
+                decodeBlock(tokens, out, i * blockSize, Math.min(blockSize, length - i * blockSize));
+            }
+        }
+        return out;
+    }
+
+    // Decompress a container written by compress, on the common pool
+    public static byte[] decompress(byte[] framed) throws IOException {
+        return decompress(framed, ForkJoinPool.commonPool());
+    }
+
+    private byte[] compressBlock(byte[] input, int historyOff, int off, int len) throws IOException {
+        TokenBuffer tokens = new TokenBuffer(len);
+        engines.get().compress(input, historyOff, off, len, tokens);
+        ByteArrayOutputStream block = new ByteArrayOutputStream(len / 2 + 16);
+        LZ77Format.write(tokens, block);
+        return block.toByteArray();
+    }
+
+    private static TokenBuffer readBlock(byte[] framed, int start, int end) throws IOException {
+        TokenBuffer tokens = new TokenBuffer(0);
+        LZ77Format.read(new ByteArrayInputStream(framed, start, end - start), tokens);
+        return tokens;
+    }
+
+    private static void decodeBlock(TokenBuffer tokens, byte[] out, int off, int len) {
+        if (tokens.decodedLength() != len) {
+            throw new IllegalArgumentException("Block at " + off + " does not decode to " + len + " bytes");
+        }
+        ByteLZ77.decompress(tokens, out, off);
+    }
+}
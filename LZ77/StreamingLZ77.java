@@ -0,0 +1,310 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+// Streaming LZ77 over InputStream/OutputStream. Only the sliding window and the lookahead are kept,
+// in a fixed-size ring buffer, and tags are written as soon as they are found, so memory stays
+// bounded no matter how large the input is. An instance is not thread-safe but can be reused.
+//
+// Stream format: a header with the offset and length bit widths, then one tag after another as a
+// 1-bit match flag, the offset and length (matches only) and the next byte. A match flag followed
+// by a zero offset ends the stream. Every tag carries a next byte: when the input ends inside a
+// match, the last matched byte is sent as the literal instead.
+public class StreamingLZ77 {
+    public static final int DEFAULT_BUFFER_SIZE = 258; // Longest match, as in DEFLATE
+    public static final int DEFAULT_CHAIN_DEPTH = 64;
+
+    private static final int MAGIC = 0x4C5A3753; // "LZ7S"
+    private static final int VERSION = 1;
+    private static final int MAX_BITS = 28;
+    private static final int MIN_MATCH = 3;
+    private static final int HASH_BITS = 15;
+    private static final int READ_CHUNK = 1 << 16;
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final int windowSize;
+    private final int bufferSize;
+    private final int maxChainDepth;
+    private final byte[] ring; // Input bytes from position - windowSize up to filled
+    private final int ringMask;
+    private final int[] head = new int[1 << HASH_BITS]; // Most recent position for each 3-byte hash
+    private final int[] head2 = new int[1 << 16];       // Most recent position for each 2-byte sequence
+    private final int[] head1 = new int[1 << 8];        // Most recent position for each byte
+    private final int[] prev;                           // Previous position with the same hash
+    private final int chainMask;
+
+    // Positions count all bytes read so far; they may wrap around, so they are only ever compared by difference
+    private int position;
+    private int filled;
+    private boolean endOfInput;
+    private int matchOffset;
+
+    // A compressor with the default lookahead and chain depth
+    public StreamingLZ77(int windowSize) {
+        this(windowSize, DEFAULT_BUFFER_SIZE, DEFAULT_CHAIN_DEPTH);
+    }
+
+    public StreamingLZ77(int windowSize, int bufferSize, int maxChainDepth) {
+        if (windowSize < 1 || bufferSize < 1 || maxChainDepth < 1) {
+            throw new IllegalArgumentException("Window size, buffer size and chain depth must be positive");
+        }
+        if (bitsFor(windowSize) > MAX_BITS || bitsFor(bufferSize) > MAX_BITS) {
+            throw new IllegalArgumentException("Window and buffer sizes must be below " + (1 << MAX_BITS));
+        }
+        this.windowSize = windowSize;
+        this.bufferSize = bufferSize;
+        this.maxChainDepth = maxChainDepth;
+        this.ring = new byte[Integer.highestOneBit((windowSize + bufferSize + MIN_MATCH + READ_CHUNK) * 2 - 1)];
+        this.ringMask = ring.length - 1;
+        int chainSize = Integer.highestOneBit(windowSize * 2 - 1);
+        this.prev = new int[chainSize];
+        this.chainMask = chainSize - 1;
+    }
+
+    // Compress everything in until end of stream, writing tags to out as they are found
+    public void compress(InputStream in, OutputStream out) throws IOException {
+        Arrays.fill(head, NONE);
+        Arrays.fill(head2, NONE);
+        Arrays.fill(head1, NONE);
+        Arrays.fill(prev, NONE);
+        position = 0;
+        filled = 0;
+        endOfInput = false;
+
+        int offsetBits = bitsFor(windowSize);
+        int lengthBits = bitsFor(bufferSize);
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(offsetBits);
+        header.writeByte(lengthBits);
+
+        BitWriter writer = new BitWriter(out);
+        while (true) {
+            fill(in);
+            int lookahead = filled - position;
+            if (lookahead == 0) {
+                break;
+            }
+
+            int length = findMatch(Math.min(bufferSize, lookahead));
+            if (length == lookahead) {
+                // The input ends inside the match, so give its last byte back as the literal
+                length--;
+            }
+
+            if (length > 0) {
+                writer.write(1, 1);
+                writer.write(matchOffset, offsetBits);
+                writer.write(length, lengthBits);
+            } else {
+                writer.write(0, 1);
+            }
+            writer.write(ring[(position + length) & ringMask], 8);
+
+            // Index the positions covered by the tag so later matches can refer back to them
+            for (int i = 1; i <= length; i++) {
+                insert(position + i);
+            }
+            position += length + 1;
+        }
+
+        // End of stream marker
+        writer.write(1, 1);
+        writer.write(0, offsetBits);
+        writer.flush();
+    }
+
+    // Decompress a stream written by compress, writing bytes to out as they are decoded
+    public static void decompress(InputStream in, OutputStream out) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not an LZ77 stream");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported LZ77 stream version: " + version);
+        }
+        int offsetBits = header.readUnsignedByte();
+        int lengthBits = header.readUnsignedByte();
+        if (offsetBits < 1 || offsetBits > MAX_BITS || lengthBits < 1 || lengthBits > MAX_BITS) {
+            throw new IOException("Corrupt LZ77 stream header");
+        }
+
+        // The ring must hold the part of the window in use plus the tag being copied, so copies never
+        // read overwritten bytes. It starts small and grows with the data, so the widths in the
+        // header alone cannot make the decoder allocate much.
+        long window = 1L << offsetBits;
+        byte[] ring = new byte[READ_CHUNK];
+        int mask = ring.length - 1;
+        long position = 0;
+        long flushed = 0;
+
+        BitReader reader = new BitReader(in);
+        while (true) {
+            int offset = 0;
+            int length = 0;
+            if (reader.read(1) == 1) {
+                offset = reader.read(offsetBits);
+                if (offset == 0) {
+                    break;
+                }
+                length = reader.read(lengthBits);
+                if (offset > position) {
+                    throw new IOException("Corrupt LZ77 stream: offset points before the start of the data");
+                }
+            }
+
+            long needed = Math.min(position, window) + length + 1;
+            if (needed > ring.length) {
+                // Move the history into a ring that is large enough
+                flushRing(out, ring, flushed, position);
+                flushed = position;
+                byte[] larger = new byte[Integer.highestOneBit((int) needed - 1) * 2];
+                for (long i = position - Math.min(position, ring.length); i < position; i++) {
+                    larger[(int) i & (larger.length - 1)] = ring[(int) i & mask];
+                }
+                ring = larger;
+                mask = ring.length - 1;
+            }
+
+            // Write out pending bytes before the tag would overwrite them
+            if (position + length + 1 - flushed > ring.length) {
+                flushRing(out, ring, flushed, position);
+                flushed = position;
+            }
+
+            for (int i = 0; i < length; i++) {
+                ring[(int) position & mask] = ring[(int) (position - offset) & mask];
+                position++;
+            }
+            ring[(int) position & mask] = (byte) reader.read(8);
+            position++;
+        }
+
+        flushRing(out, ring, flushed, position);
+        out.flush();
+    }
+
+    // Write ring bytes from start up to end, which may wrap around the end of the ring
+    private static void flushRing(OutputStream out, byte[] ring, long start, long end) throws IOException {
+        int from = (int) start & (ring.length - 1);
+        int count = (int) (end - start);
+        int first = Math.min(count, ring.length - from);
+        out.write(ring, from, first);
+        out.write(ring, 0, count - first);
+    }
+
+    // Read until the lookahead, and the bytes needed to hash the positions it covers, are in the ring
+    private void fill(InputStream in) throws IOException {
+        while (!endOfInput && filled - position < bufferSize + MIN_MATCH) {
+            int free = ring.length - windowSize - (filled - position);
+            int start = filled & ringMask;
+            int count = in.read(ring, start, Math.min(free, ring.length - start));
+            if (count < 0) {
+                endOfInput = true;
+            } else {
+                filled += count;
+            }
+        }
+    }
+
+    // Find the longest match for the lookahead at the current position and index that position
+    private int findMatch(int maxLength) {
+        int bestLength = 0;
+        int bestOffset = 0;
+
+        // Walk the chain of earlier positions that share the same 3-byte prefix
+        if (maxLength >= MIN_MATCH) {
+            int candidate = head[hash3(position)];
+            int depth = maxChainDepth;
+            while (depth-- > 0) {
+                int distance = position - candidate;
+                if (distance <= 0 || distance > windowSize) {
+                    break;
+                }
+                // Skip candidates that cannot beat the current best
+                if (ring[(candidate + bestLength) & ringMask] == ring[(position + bestLength) & ringMask]) {
+                    int length = matchLength(candidate, maxLength);
+                    if (length > bestLength) {
+                        bestLength = length;
+                        bestOffset = distance;
+                        if (length == maxLength) {
+                            break;
+                        }
+                    }
+                }
+                candidate = prev[candidate & chainMask];
+            }
+        }
+
+        // Short matches still save a tag, so fall back to the most recent 2- and 1-byte occurrences.
+        // Positions wrap, so a stale or empty entry can land inside the window: compare the bytes too.
+        if (bestLength < 2 && maxLength >= 2) {
+            int candidate = head2[key2(position)];
+            int distance = position - candidate;
+            if (distance > 0 && distance <= windowSize && matchLength(candidate, 2) == 2) {
+                bestLength = 2;
+                bestOffset = distance;
+            }
+        }
+        if (bestLength < 1) {
+            int distance = position - head1[ring[position & ringMask] & 0xFF];
+            if (distance > 0 && distance <= windowSize
+                    && ring[(position - distance) & ringMask] == ring[position & ringMask]) {
+                bestLength = 1;
+                bestOffset = distance;
+            }
+        }
+
+        insert(position);
+        matchOffset = bestOffset;
+        return bestLength;
+    }
+
+    // Length of the common prefix at candidate and the current position
+    private int matchLength(int candidate, int maxLength) {
+        int from = candidate & ringMask;
+        int to = position & ringMask;
+        if (from + maxLength <= ring.length && to + maxLength <= ring.length) {
+            return ByteLZ77.matchLength(ring, from, to, maxLength);
+        }
+
+        // One of the ranges wraps around the end of the ring
+        int length = 0;
+        while (length < maxLength && ring[(candidate + length) & ringMask] == ring[(position + length) & ringMask]) {
+            length++;
+        }
+        return length;
+    }
+
+    // Add a position to the hash tables, as far as the bytes after it have been read
+    private void insert(int at) {
+        head1[ring[at & ringMask] & 0xFF] = at;
+        if (filled - at > 1) {
+            head2[key2(at)] = at;
+        }
+        if (filled - at > 2) {
+            int h = hash3(at);
+            prev[at & chainMask] = head[h];
+            head[h] = at;
+        }
+    }
+
+    private int key2(int at) {
+        return (ring[at & ringMask] & 0xFF) << 8 | (ring[(at + 1) & ringMask] & 0xFF);
+    }
+
+    private int hash3(int at) {
+        int key = (ring[at & ringMask] & 0xFF) << 16 | (ring[(at + 1) & ringMask] & 0xFF) << 8
+                | (ring[(at + 2) & ringMask] & 0xFF);
+        return (key * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+
+    private static int bitsFor(int max) {
+        return 32 - Integer.numberOfLeadingZeros(max);
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.Arrays;
+
+// Reusable token storage for the byte-level LZ77 engine. Token i is the tag
+// (offsets[i], lengths[i], literals[i]) held in parallel primitive arrays; a literal of -1
+// means the match ran to the end of the input and there is no next byte.
+public class TokenBuffer {
+    int[] offsets;
+    int[] lengths;
+    int[] literals;
+    int size;
+
+    public TokenBuffer() {
+        this(1024);
+    }
+
+    public TokenBuffer(int capacity) {
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        literals = new int[capacity];
+    }
+
+    // Make room for at least capacity tokens, dropping the current contents if the arrays must grow
+    public void ensureCapacity(int capacity) {
+        if (offsets.length < capacity) {
+            offsets = new int[capacity];
+            lengths = new int[capacity];
+            literals = new int[capacity];
+            size = 0;
+        }
+    }
+
+    // Append a token, growing the arrays when needed
+    public void add(int offset, int length, int literal) {
+        if (size == offsets.length) {
+            int capacity = Math.max(16, size * 2);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            literals = Arrays.copyOf(literals, capacity);
+        }
+        offsets[size] = offset;
+        lengths[size] = length;
+        literals[size] = literal;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    public int literal(int index) {
+        return literals[index];
+    }
+
+    // Number of bytes the tokens expand to
+    public long decodedLength() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += lengths[i] + (literals[i] >= 0 ? 1 : 0);
+        }
+        return total;
+    }
+}
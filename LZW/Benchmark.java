@@ -0,0 +1,363 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Throughput benchmark for the LZW implementations
+// Usage: java Benchmark [inputFile]
+public class Benchmark {
+    public static void main(String[] args) throws IOException {
+        String input = args.length > 0
+                ? new String(Files.readAllBytes(Path.of(args[0])), StandardCharsets.ISO_8859_1)
+                : sampleLog(1 << 22);
+
+        System.out.println("LZW Benchmark");
+        System.out.println("=============");
+        System.out.println("Input: " + input.length() + " characters");
+
+        // HashMap<String, Integer> dictionary
+        List<Integer> reference = null;
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            reference = LZW.compress(input);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        printResult("string dictionary", input.length(), reference.size(), bestNanos);
+
+        // Primitive (prefix, symbol) dictionary
+        int[] codes = null;
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            codes = LZW.compressCodes(input);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        if (!Arrays.equals(codes, reference.stream().mapToInt(Integer::intValue).toArray())) {
+            throw new IllegalStateException("Primitive dictionary produced different codes");
+        }
+        printResult("primitive dictionary", input.length(), codes.length, bestNanos);
+
+        // Raw bytes, with no String in between
+        byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+        int[] byteCodes = null;
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            byteCodes = LZW.compressCodes(bytes, LZW.DEFAULT_MAX_BITS, LZWPolicy.FREEZE);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        printResult("byte[] input", bytes.length, byteCodes.length, bestNanos);
+
+        // Decoding: HashMap<Integer, String> table against the array-backed prefix chain
+        String text = null;
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            text = LZW.decompress(reference);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        if (!text.equals(input)) {
+            throw new IllegalStateException("String table decoding failed");
+        }
+        printResult("string table decode", input.length(), codes.length, bestNanos);
+
+        byte[] decoded = new byte[Math.toIntExact(LZW.decodedLength(codes, codes.length))];
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            LZW.decompressCodes(codes, codes.length, decoded, 0);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        if (!new String(decoded, StandardCharsets.ISO_8859_1).equals(input)) {
+            throw new IllegalStateException("Array table decoding failed");
+        }
+        printResult("array table decode", input.length(), codes.length, bestNanos);
+
+        // Output size: decimal text against variable-width bit packing
+        long textSize = 0;
+        for (int code : codes) {
+            textSize += String.valueOf(code).length() + 1;
+        }
+        int[] bounded = LZW.compressCodes(input, LZW.DEFAULT_MAX_BITS);
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            packed.reset();
+            long start = System.nanoTime();
+            LZWFormat.write(bounded, bounded.length, LZW.DEFAULT_MAX_BITS, packed);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        printResult("bit-packed write", input.length(), bounded.length, bestNanos);
+
+        byte[] unpacked = null;
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            unpacked = LZWFormat.decompress(new ByteArrayInputStream(packed.toByteArray()));
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        if (!new String(unpacked, StandardCharsets.ISO_8859_1).equals(input)) {
+            throw new IllegalStateException("Bit-packed round trip failed");
+        }
+        printResult("bit-packed read + decode", input.length(), bounded.length, bestNanos);
+        System.out.printf("Text codes: %d bytes (ratio %.3f), bit-packed: %d bytes (ratio %.3f)%n",
+                textSize, (double) textSize / input.length(),
+                packed.size(), (double) packed.size() / input.length());
+
+        // Incremental encoder and decoder fed 64 KB at a time
+        int streamedCodes = LZW.compressCodes(bytes, LZW.DEFAULT_MAX_BITS, LZWFormat.DEFAULT_POLICY).length;
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            packed.reset();
+            long start = System.nanoTime();
+            LZWEncoder encoder = new LZWEncoder(packed, LZW.DEFAULT_MAX_BITS, LZWFormat.DEFAULT_POLICY);
+            for (int offset = 0; offset < bytes.length; offset += 1 << 16) {
+                encoder.update(bytes, offset, Math.min(1 << 16, bytes.length - offset));
+            }
+            encoder.finish();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        printResult("streaming encoder", bytes.length, streamedCodes, bestNanos);
+
+        byte[] streamed = packed.toByteArray();
+        ByteArrayOutputStream restored = new ByteArrayOutputStream(bytes.length);
+        bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            restored.reset();
+            long start = System.nanoTime();
+            LZWDecoder decoder = new LZWDecoder(restored);
+            for (int offset = 0; offset < streamed.length; offset += 1 << 16) {
+                decoder.update(streamed, offset, Math.min(1 << 16, streamed.length - offset));
+            }
+            decoder.finish();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        if (!Arrays.equals(restored.toByteArray(), bytes)) {
+            throw new IllegalStateException("Streaming round trip failed");
+        }
+        printResult("streaming decoder", bytes.length, streamedCodes, bestNanos);
+
+        // Independent chunks, on 1 worker and then on every core, with the speedup over 1 worker
+        System.out.println();
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Parallel chunks (" + cores + " cores)");
+        long[] singleWorker = null;
+        for (int workers = 1; ; workers = Math.min(cores, workers * 2)) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            long[] nanos = runParallel(workers + " workers, 1 MB chunks", bytes,
+                    new ParallelLZW(LZW.DEFAULT_MAX_BITS, LZWFormat.DEFAULT_POLICY, 1 << 20, pool), pool);
+            pool.shutdown();
+            if (singleWorker == null) {
+                singleWorker = nanos;
+            } else {
+                System.out.printf("    speedup over 1 worker: %.2fx compress, %.2fx decompress%n",
+                        (double) singleWorker[0] / nanos[0], (double) singleWorker[1] / nanos[1]);
+            }
+            if (workers == cores) {
+                break;
+            }
+        }
+        if (cores == 1) {
+            System.out.println("    only one core is available, so scaling was not measured");
+        }
+
+        // Full-dictionary policies on input whose vocabulary drifts every 512 KB
+        String drifting = driftingLog(input.length());
+        int[] unbounded = LZW.compressCodes(drifting);
+        System.out.println();
+        System.out.println("Dictionary policies (drifting input, unbounded dictionary reaches "
+                + (256 + unbounded.length - 1) + " entries)");
+        for (int maxBits : new int[] {12, 16}) {
+            for (LZWPolicy policy : LZWPolicy.values()) {
+                int[] policyCodes = null;
+                bestNanos = Long.MAX_VALUE;
+                for (int i = 0; i < 3; i++) {
+                    long start = System.nanoTime();
+                    policyCodes = LZW.compressCodes(drifting, maxBits, policy);
+                    bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+                }
+                packed.reset();
+                LZWFormat.write(policyCodes, policyCodes.length, maxBits, policy, packed);
+                byte[] roundTrip = LZW.decompressCodes(policyCodes, policyCodes.length, maxBits, policy);
+                if (!new String(roundTrip, StandardCharsets.ISO_8859_1).equals(drifting)) {
+                    throw new IllegalStateException(policy + " round trip failed");
+                }
+                printResult(policy + " " + maxBits + " bits", drifting.length(), policyCodes.length, bestNanos);
+                System.out.printf("    at most %d entries, ratio %.3f%n",
+                        1 << maxBits, (double) packed.size() / drifting.length());
+            }
+        }
+
+        // Dictionary growth variants on the log corpus and the drifting one
+        byte[] driftingBytes = drifting.getBytes(StandardCharsets.ISO_8859_1);
+        for (int maxBits : new int[] {16, 20}) {
+            System.out.println();
+            System.out.println("Dictionary variants (" + maxBits + " bits)");
+            for (LZWVariant variant : LZWVariant.values()) {
+                runVariant(variant + " log", bytes, maxBits, variant);
+                runVariant(variant + " drifting", driftingBytes, maxBits, variant);
+            }
+        }
+
+        // Small messages of 4 log lines, with and without a preset trained on earlier lines
+        String[] lines = new String(bytes, StandardCharsets.ISO_8859_1).split("\n");
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < lines.length / 2; i++) {
+            samples.add((lines[i] + '\n').getBytes(StandardCharsets.ISO_8859_1));
+        }
+        List<byte[]> messages = new ArrayList<>();
+        for (int i = lines.length / 2; i + 4 <= lines.length && messages.size() < 10000; i += 4) {
+            messages.add(String.join("\n", Arrays.asList(lines).subList(i, i + 4)).getBytes(StandardCharsets.ISO_8859_1));
+        }
+        System.out.println();
+        System.out.println("Small messages (" + messages.size() + " messages of 4 lines)");
+        runMessages("no preset", messages, null);
+        for (int entries : new int[] {1024, 4096, 16384}) {
+            long start = System.nanoTime();
+            LZWPresetDictionary preset = LZWPresetDictionary.train(samples, entries);
+            System.out.printf("%-28s trained on %d lines in %.1f ms%n",
+                    "preset " + entries, samples.size(), (System.nanoTime() - start) / 1e6);
+            runMessages("preset " + entries, messages, preset);
+        }
+    }
+
+    // Compress with a dictionary variant and report phrases/s, decoding speed and the packed ratio
+    private static void runVariant(String name, byte[] input, int maxBits, LZWVariant variant) throws IOException {
+        int[] codes = null;
+        long bestCompress = Long.MAX_VALUE;
+        long bestDecompress = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            codes = LZWVariants.compressCodes(input, maxBits, variant);
+            long middle = System.nanoTime();
+            byte[] output = LZWVariants.decompressCodes(codes, codes.length, maxBits, variant);
+            bestCompress = Math.min(bestCompress, middle - start);
+            bestDecompress = Math.min(bestDecompress, System.nanoTime() - middle);
+            if (!Arrays.equals(output, input)) {
+                throw new IllegalStateException(name + " did not round-trip");
+            }
+        }
+        ByteArrayOutputStream packed = new ByteArrayOutputStream(input.length / 2);
+        LZWVariants.compress(input, maxBits, variant, packed);
+        printResult(name, input.length, codes.length, bestCompress);
+        System.out.printf("    ratio %.3f, %.1f bytes per phrase, %.2f MB/s decompress%n",
+                (double) packed.size() / input.length, (double) input.length / codes.length,
+                input.length / (bestDecompress / 1e9) / (1 << 20));
+    }
+
+    // Compress and decompress every message on its own and report the total ratio and throughputs
+    private static void runMessages(String name, List<byte[]> messages, LZWPresetDictionary preset)
+            throws IOException {
+        long inputLength = 0;
+        long outputLength = 0;
+        long bestCompress = Long.MAX_VALUE;
+        long bestDecompress = Long.MAX_VALUE;
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        for (int i = 0; i < 5; i++) {
+            inputLength = 0;
+            outputLength = 0;
+            long compressNanos = 0;
+            long decompressNanos = 0;
+            for (byte[] message : messages) {
+                compressed.reset();
+                long start = System.nanoTime();
+                LZWFormat.compress(message, LZW.DEFAULT_MAX_BITS, LZWFormat.DEFAULT_POLICY, preset, compressed);
+                long middle = System.nanoTime();
+                byte[] output = LZWFormat.decompress(new ByteArrayInputStream(compressed.toByteArray()), preset);
+                decompressNanos += System.nanoTime() - middle;
+                compressNanos += middle - start;
+                if (!Arrays.equals(output, message)) {
+                    throw new IllegalStateException(name + " did not round-trip");
+                }
+                inputLength += message.length;
+                outputLength += compressed.size();
+            }
+            bestCompress = Math.min(bestCompress, compressNanos);
+            bestDecompress = Math.min(bestDecompress, decompressNanos);
+        }
+        System.out.printf("%-28s %6.3f ratio %10.2f MB/s compress %10.2f MB/s decompress%n",
+                name, (double) outputLength / inputLength,
+                inputLength / (bestCompress / 1e9) / (1 << 20), inputLength / (bestDecompress / 1e9) / (1 << 20));
+    }
+
+    // Compress and decompress with the parallel container and report both throughputs and the ratio;
+    // returns the best compression and decompression times
+    private static long[] runParallel(String name, byte[] input, ParallelLZW compressor, ForkJoinPool pool)
+            throws IOException {
+        byte[] framed = null;
+        long bestCompress = Long.MAX_VALUE;
+        long bestDecompress = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            framed = compressor.compress(input);
+            long middle = System.nanoTime();
+            byte[] output = ParallelLZW.decompress(framed, pool);
+            bestCompress = Math.min(bestCompress, middle - start);
+            bestDecompress = Math.min(bestDecompress, System.nanoTime() - middle);
+            if (!Arrays.equals(output, input)) {
+                throw new IllegalStateException(name + " did not round-trip");
+            }
+        }
+        System.out.printf("%-28s %6.3f ratio %10.2f MB/s compress %10.2f MB/s decompress%n",
+                name, (double) framed.length / input.length,
+                input.length / (bestCompress / 1e9) / (1 << 20), input.length / (bestDecompress / 1e9) / (1 << 20));
+        return new long[] {bestCompress, bestDecompress};
+    }
+
+    static void printResult(String name, long inputLength, long codeCount, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-28s %10d codes %12.0f phrases/s %10.2f MB/s%n",
+                name, codeCount, codeCount / seconds, inputLength / seconds / (1 << 20));
+    }
+
+    // Log-like text whose letters are rotated differently in every 512 KB segment, so phrases
+    // learned early stop matching later on
+    static String driftingLog(int length) {
+        char[] text = sampleLog(length).toCharArray();
+        for (int i = 0; i < text.length; i++) {
+            int shift = i >> 19;
+            char c = text[i];
+            if (c >= 'a' && c <= 'z') {
+                text[i] = (char) ('a' + (c - 'a' + shift) % 26);
+            } else if (c >= 'A' && c <= 'Z') {
+                text[i] = (char) ('A' + (c - 'A' + shift) % 26);
+            }
+        }
+        return new String(text);
+    }
+
+    // Generate log-like text with plenty of repeated phrases
+    static String sampleLog(int length) {
+        String[] levels = {"INFO", "WARN", "DEBUG", "ERROR"};
+        String[] messages = {
+                "Request completed", "Cache miss for key", "Connection reset by peer",
+                "Retrying operation", "User session created", "Slow query detected"
+        };
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length + 128);
+        while (builder.length() < length) {
+            builder.append("2023-10-")
+                    .append(10 + random.nextInt(20))
+                    .append(" 12:")
+                    .append(10 + random.nextInt(50))
+                    .append(' ')
+                    .append(levels[random.nextInt(levels.length)])
+                    .append(" [worker-")
+                    .append(random.nextInt(8))
+                    .append("] ")
+                    .append(messages[random.nextInt(messages.length)])
+                    .append(" id=")
+                    .append(random.nextInt(100000))
+                    .append('\n');
+        }
+        return builder.substring(0, length);
+    }
+}
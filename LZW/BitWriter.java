@@ -0,0 +1,56 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Writes values of up to 32 bits, least significant bit first, through a 64-bit accumulator
+public class BitWriter {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int bufferLength;
+    private long bits;
+    private int bitCount;
+
+    public BitWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    // Write the low count bits of value
+    public void write(int value, int count) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        bits |= (value & (0xFFFFFFFFL >>> (32 - count))) << bitCount;
+        bitCount += count;
+        if (bitCount >= 32) {
+            if (bufferLength > buffer.length - 4) {
+                flushBuffer();
+            }
+            buffer[bufferLength++] = (byte) bits;
+            buffer[bufferLength++] = (byte) (bits >>> 8);
+            buffer[bufferLength++] = (byte) (bits >>> 16);
+            buffer[bufferLength++] = (byte) (bits >>> 24);
+            bits >>>= 32;
+            bitCount -= 32;
+        }
+    }
+
+    // Write the pending bits, padding the last byte with zeros, and flush the stream
+    public void flush() throws IOException {
+        while (bitCount > 0) {
+            if (bufferLength == buffer.length) {
+                flushBuffer();
+            }
+            buffer[bufferLength++] = (byte) bits;
+            bits >>>= 8;
+            bitCount -= 8;
+        }
+        bits = 0;
+        bitCount = 0;
+        flushBuffer();
+        out.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, bufferLength);
+        bufferLength = 0;
+    }
+}
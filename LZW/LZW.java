@@ -1,9 +1,19 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class LZW {
+    // Code widths accepted by the bit-packed format and the bounded dictionaries
+    public static final int MIN_BITS = 9;
+    public static final int MAX_BITS = 24;
+    public static final int DEFAULT_MAX_BITS = 16;
+    private static final long UNLIMITED = Long.MAX_VALUE; // No code limit, as in compress
+
     // LZW compression algorithm
     public static List<Integer> compress(String input) {
         // Create a dictionary to store character-to-code mappings.
@@ -36,6 +46,86 @@ public class LZW {
         return compressedData; // Return the compressed data as a list of integers.
     }
 
+    // LZW compression over the primitive dictionary; returns the same codes as compress without
+    // building a String per step or boxing the output. Characters must be in the range 0-255.
+    public static int[] compressCodes(String input) {
+        return compressCodes(input, UNLIMITED);
+    }
+
+    // LZW compression with codes limited to maxBits bits: once every code is taken the
+    // dictionary is frozen and the rest of the input is coded with the entries it has
+    public static int[] compressCodes(String input, int maxBits) {
+        return compressCodes(input, maxBits, LZWPolicy.FREEZE);
+    }
+
+    // LZW compression with codes limited to maxBits bits and the given policy for a full dictionary
+    public static int[] compressCodes(String input, int maxBits, LZWPolicy policy) {
+        return compressCodes(input, maxCodes(maxBits), policy);
+    }
+
+    // LZW compression of raw bytes; the dictionary starts from the byte values 0-255, so any
+    // binary data round-trips through decompressCodes unchanged
+    public static int[] compressCodes(byte[] input, int maxBits, LZWPolicy policy) {
+        return compressCodes(ByteBuffer.wrap(input), maxCodes(maxBits), policy);
+    }
+
+    public static int[] compressCodes(byte[] input, int offset, int length, int maxBits, LZWPolicy policy) {
+        return compressCodes(ByteBuffer.wrap(input, offset, length), maxCodes(maxBits), policy);
+    }
+
+    // LZW compression starting from the entries of a preset dictionary, so short inputs can use
+    // long phrases from the first byte; decompress with the same preset
+    public static int[] compressCodes(byte[] input, int maxBits, LZWPolicy policy, LZWPresetDictionary preset) {
+        return compressCodes(ByteBuffer.wrap(input), maxCodes(maxBits), policy, preset);
+    }
+
+    // Compress everything left in the stream
+    public static int[] compressCodes(InputStream in, int maxBits, LZWPolicy policy) throws IOException {
+        return compressCodes(in.readAllBytes(), maxBits, policy);
+    }
+
+    // Compress a whole file by mapping it into memory, with no copy through the Java heap
+    public static int[] compressCodes(FileChannel channel, int maxBits, LZWPolicy policy) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("File is too large to map: " + size + " bytes");
+        }
+        return compressCodes(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), maxCodes(maxBits), policy);
+    }
+
+    private static int[] compressCodes(String input, long maxCodes) {
+        return compressCodes(input, maxCodes, LZWPolicy.FREEZE);
+    }
+
+    private static int[] compressCodes(String input, long maxCodes, LZWPolicy policy) {
+        byte[] bytes = new byte[input.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) symbolAt(input, i);
+        }
+        return compressCodes(ByteBuffer.wrap(bytes), maxCodes, policy);
+    }
+
+    // Compress the bytes between the position and the limit of input
+    private static int[] compressCodes(ByteBuffer input, long maxCodes, LZWPolicy policy) {
+        return compressCodes(input, maxCodes, policy, null);
+    }
+
+    private static int[] compressCodes(ByteBuffer input, long maxCodes, LZWPolicy policy, LZWPresetDictionary preset) {
+        LZWEncoder encoder = new LZWEncoder(maxCodes, policy, preset, input.remaining());
+        encoder.encode(input, input.position(), input.limit());
+        encoder.end();
+        return encoder.codes();
+    }
+
+    // The dictionary symbol for a character, which must fit the 256 initial entries
+    private static int symbolAt(String input, int index) {
+        char c = input.charAt(index);
+        if (c > 0xFF) {
+            throw new IllegalArgumentException("Character " + (int) c + " at index " + index + " is outside 0-255");
+        }
+        return c;
+    }
+
     // LZW decompression algorithm
     public static String decompress(List<Integer> compressedData) {
         // Create a dictionary to store code-to-character mappings.
@@ -71,4 +161,83 @@ public class LZW {
         }
         return decompressedText.toString(); // Return the decompressed text.
     }
-}
\ No newline at end of file
+
+    // LZW decompression into a byte array sized up front, with the array-backed code table
+    public static byte[] decompressCodes(int[] compressedData) {
+        return decompressCodes(compressedData, compressedData.length, UNLIMITED, LZWPolicy.FREEZE);
+    }
+
+    // Decompress codes produced by compressCodes(String, int) with the same maxBits
+    public static byte[] decompressCodes(int[] compressedData, int count, int maxBits) {
+        return decompressCodes(compressedData, count, maxBits, LZWPolicy.FREEZE);
+    }
+
+    // Decompress codes produced by compressCodes(String, int, LZWPolicy) with the same settings
+    public static byte[] decompressCodes(int[] compressedData, int count, int maxBits, LZWPolicy policy) {
+        return decompressCodes(compressedData, count, maxCodes(maxBits), policy);
+    }
+
+    // Decompress codes produced by compressCodes(byte[], int, LZWPolicy, LZWPresetDictionary)
+    public static byte[] decompressCodes(int[] compressedData, int count, int maxBits, LZWPolicy policy,
+                                         LZWPresetDictionary preset) {
+        return decompressCodes(compressedData, count, maxCodes(maxBits), policy, preset);
+    }
+
+    // Decode the first count codes into out starting at outOff, which must have room for
+    // decodedLength(compressedData, count) bytes; returns the number of bytes written
+    public static int decompressCodes(int[] compressedData, int count, byte[] out, int outOff) {
+        return (int) decode(compressedData, count, UNLIMITED, LZWPolicy.FREEZE, null, out, outOff);
+    }
+
+    // As above, for codes limited to maxBits bits
+    public static int decompressCodes(int[] compressedData, int count, int maxBits, byte[] out, int outOff) {
+        return (int) decode(compressedData, count, maxCodes(maxBits), LZWPolicy.FREEZE, null, out, outOff);
+    }
+
+    private static byte[] decompressCodes(int[] compressedData, int count, long maxCodes, LZWPolicy policy) {
+        return decompressCodes(compressedData, count, maxCodes, policy, null);
+    }
+
+    private static byte[] decompressCodes(int[] compressedData, int count, long maxCodes, LZWPolicy policy,
+                                          LZWPresetDictionary preset) {
+        long length = decode(compressedData, count, maxCodes, policy, preset, null, 0);
+        byte[] decompressed = new byte[Math.toIntExact(length)];
+        decode(compressedData, count, maxCodes, policy, preset, decompressed, 0);
+        return decompressed;
+    }
+
+    // Number of bytes the first count codes decode to
+    public static long decodedLength(int[] compressedData, int count) {
+        return decode(compressedData, count, UNLIMITED, LZWPolicy.FREEZE, null, null, 0);
+    }
+
+    // As above, for codes limited to maxBits bits
+    public static long decodedLength(int[] compressedData, int count, int maxBits) {
+        return decode(compressedData, count, maxCodes(maxBits), LZWPolicy.FREEZE, null, null, 0);
+    }
+
+    // Decode the first count codes into out at outOff, or only measure them when out is null;
+    // returns the decoded length
+    private static long decode(int[] compressedData, int count, long maxCodes, LZWPolicy policy,
+                               LZWPresetDictionary preset, byte[] out, int outOff) {
+        // Every code adds at most one entry, so the table never has to grow
+        LZWCodeTable table = new LZWCodeTable((int) Math.min(Integer.MAX_VALUE, 257L + count), maxCodes, policy, preset);
+        long position = outOff;
+        for (int i = 0; i < count; i++) {
+            try {
+                position += table.decode(compressedData[i], out, (int) position);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(e.getMessage() + " at index " + i, e);
+            }
+        }
+        return position - outOff;
+    }
+
+    // Number of codes that fit in maxBits bits
+    static long maxCodes(int maxBits) {
+        if (maxBits < MIN_BITS || maxBits > MAX_BITS) {
+            throw new IllegalArgumentException("Code width must be between " + MIN_BITS + " and " + MAX_BITS + " bits");
+        }
+        return 1L << maxBits;
+    }
+}
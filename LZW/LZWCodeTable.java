@@ -0,0 +1,245 @@
+import java.util.Arrays;
+
+// Decoder dictionary that stores every entry as its prefix code, last byte and length in parallel
+// arrays. An entry costs the same no matter how long its string is, and decoding writes the string
+// straight into the output by walking the prefix chain backwards.
+// Single bytes are not stored, and preset entries are read from the preset's shared arrays, so
+// only the entries added here take up room, and starting a table or clearing it costs nothing
+// per preset entry. LRU can replace preset entries, so under LRU the table copies them instead.
+// Once maxCodes entries exist the table follows its LZWPolicy, exactly as the encoder does.
+public class LZWCodeTable {
+    // Entries from split on, indexed by code - split
+    private int[] prefixes;
+    private byte[] firstBytes;
+    private byte[] lastBytes;
+    private int[] lengths;
+    private final int split;
+
+    // Shared preset entries from firstCode up to split, or null
+    private final int[] presetPrefixes; // Indexed by code
+    private final byte[] presetFirstBytes; // Indexed by code - firstCode, like presetLastBytes and presetLengths
+    private final byte[] presetLastBytes;
+    private final int[] presetLengths;
+    private final int firstCode;
+
+    private final long maxCodes;
+    private final LZWPolicy policy;
+    private final LZWLeafList leaves; // Only for LRU
+    private final int startSize; // Size at the start and after a CLEAR
+    private int size;
+    private int maxLength = 1; // Longest string any entry has held
+    private int old = -1; // Previous code given to decode, or -1 at the start and after a CLEAR
+
+    // capacity is the number of entries to make room for up front, including the 256 single-byte ones
+    public LZWCodeTable(int capacity) {
+        this(capacity, Long.MAX_VALUE, LZWPolicy.FREEZE);
+    }
+
+    public LZWCodeTable(int capacity, long maxCodes, LZWPolicy policy) {
+        this(capacity, maxCodes, policy, null);
+    }
+
+    // A table that starts with the entries of preset, or only the single bytes when it is null
+    public LZWCodeTable(int capacity, long maxCodes, LZWPolicy policy, LZWPresetDictionary preset) {
+        LZWPresetDictionary.Layout layout = preset != null ? preset.layout(policy, maxCodes) : null;
+        firstCode = policy.firstCode();
+        startSize = firstCode + (preset != null ? preset.size() : 0);
+        split = policy == LZWPolicy.LRU ? firstCode : startSize;
+        capacity = (int) Math.max(16, Math.min(maxCodes, Math.max(startSize, capacity)) - split);
+        prefixes = new int[capacity];
+        firstBytes = new byte[capacity];
+        lastBytes = new byte[capacity];
+        lengths = new int[capacity];
+        this.maxCodes = maxCodes;
+        this.policy = policy;
+
+        if (layout == null) {
+            presetPrefixes = null;
+            presetFirstBytes = null;
+            presetLastBytes = null;
+            presetLengths = null;
+            leaves = policy == LZWPolicy.LRU ? new LZWLeafList(firstCode, split + capacity) : null;
+        } else if (policy == LZWPolicy.LRU) {
+            // Copy the preset entries, since any of them can be replaced
+            presetPrefixes = null;
+            presetFirstBytes = null;
+            presetLastBytes = null;
+            presetLengths = null;
+            System.arraycopy(layout.prefixes, firstCode, prefixes, 0, preset.size());
+            System.arraycopy(preset.firstBytes(), 0, firstBytes, 0, preset.size());
+            System.arraycopy(preset.symbols(), 0, lastBytes, 0, preset.size());
+            System.arraycopy(preset.lengths(), 0, lengths, 0, preset.size());
+            leaves = new LZWLeafList(layout.leaves, split + capacity);
+        } else {
+            presetPrefixes = layout.prefixes;
+            presetFirstBytes = preset.firstBytes();
+            presetLastBytes = preset.symbols();
+            presetLengths = preset.lengths();
+            leaves = null;
+        }
+        if (preset != null) {
+            maxLength = preset.maxLength();
+        }
+        size = startSize;
+    }
+
+    // Decode n, the next code of the stream, into out at position, or only measure it when out is
+    // null. out needs room for maxLength() + 1 bytes. Returns the number of bytes decoded, which is
+    // zero for a CLEAR code.
+    public int decode(int n, byte[] out, int position) {
+        if (policy == LZWPolicy.RESET && n == LZWPolicy.CLEAR) {
+            clear();
+            return 0;
+        }
+
+        if (old < 0) {
+            if (!contains(n)) {
+                throw new IllegalArgumentException("Invalid LZW code " + n);
+            }
+            old = n;
+            return write(n, out, position);
+        }
+
+        // The previous string plus the first byte of this one goes in the next free code
+        int pending = reserve(old);
+        byte first;
+        int length;
+        if (n == pending) {
+            // The code is the entry about to be added: the previous string plus its first byte.
+            first = firstByte(old);
+            length = write(old, out, position);
+            if (out != null) {
+                out[position + length] = first;
+            }
+            length++;
+        } else if (contains(n)) {
+            first = firstByte(n);
+            length = write(n, out, position); // Write the string associated with the code.
+        } else {
+            throw new IllegalArgumentException("Invalid LZW code " + n);
+        }
+
+        if (pending >= 0) {
+            add(pending, old, first);
+        }
+        touch(n);
+        old = n;
+        return length;
+    }
+
+    // Code the next entry extending prefix will take, or -1 when the table cannot take one.
+    // Under LRU this already counts the new child of prefix, so it must be followed by add.
+    public int reserve(int prefix) {
+        if (leaves != null) {
+            leaves.addChild(prefix);
+        }
+        if (size < maxCodes) {
+            return size;
+        }
+        int victim = leaves != null ? leaves.victim() : -1;
+        if (victim < 0 && leaves != null) {
+            leaves.removeChild(prefix);
+        }
+        return victim;
+    }
+
+    // Store prefix followed by last at a code returned by reserve
+    public void add(int code, int prefix, byte last) {
+        int index = code - split;
+        if (code == size) {
+            if (index == prefixes.length) {
+                grow();
+            }
+            size++;
+        } else {
+            leaves.remove(code, prefixes[index]);
+        }
+        prefixes[index] = prefix;
+        firstBytes[index] = firstByte(prefix);
+        lastBytes[index] = last;
+        lengths[index] = length(prefix) + 1;
+        maxLength = Math.max(maxLength, lengths[index]);
+        if (leaves != null) {
+            leaves.added(code);
+        }
+    }
+
+    // Add the string of prefix followed by last at the next free code; returns the code
+    public int add(int prefix, byte last) {
+        int code = size;
+        add(code, prefix, last);
+        return code;
+    }
+
+    // Record that code was decoded, for LRU
+    public void touch(int code) {
+        if (leaves != null) {
+            leaves.touch(code);
+        }
+    }
+
+    // Drop every entry added since the start, on a CLEAR code. Under RESET nothing is ever
+    // replaced, so the preset entries are still in place.
+    public void clear() {
+        size = startSize;
+        old = -1;
+    }
+
+    // Whether code currently stands for a string
+    public boolean contains(int code) {
+        return code >= 0 && code < size && (policy != LZWPolicy.RESET || code != LZWPolicy.CLEAR);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int length(int code) {
+        if (code >= split) {
+            return lengths[code - split];
+        }
+        return code >= firstCode ? presetLengths[code - firstCode] : 1;
+    }
+
+    public int maxLength() {
+        return maxLength;
+    }
+
+    public byte firstByte(int code) {
+        if (code >= split) {
+            return firstBytes[code - split];
+        }
+        return code >= firstCode ? presetFirstBytes[code - firstCode] : (byte) code;
+    }
+
+    // Write the string for code into out at position, or skip it when out is null; returns its length.
+    // The chain runs through this table's entries, then the preset's, and ends at a single byte.
+    public int write(int code, byte[] out, int position) {
+        int length = length(code);
+        if (out == null) {
+            return length;
+        }
+        int i = position + length - 1;
+        for (; code >= split; i--) {
+            out[i] = lastBytes[code - split];
+            code = prefixes[code - split];
+        }
+        for (; code >= firstCode; i--) {
+            out[i] = presetLastBytes[code - firstCode];
+            code = presetPrefixes[code];
+        }
+        out[i] = (byte) code;
+        return length;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(maxCodes - split, prefixes.length * 2L);
+        prefixes = Arrays.copyOf(prefixes, capacity);
+        firstBytes = Arrays.copyOf(firstBytes, capacity);
+        lastBytes = Arrays.copyOf(lastBytes, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        if (leaves != null) {
+            leaves.ensureCapacity(split + capacity);
+        }
+    }
+}
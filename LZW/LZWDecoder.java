@@ -0,0 +1,141 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+// Incremental decoder for the LZWFormat layout: feed compressed bytes with update as they arrive
+// and call finish at the end. Each code is decoded as soon as its last bit is in, and every
+// update writes what it decoded, so memory stays bounded by the dictionary and the input chunk.
+public class LZWDecoder {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final LZWPresetDictionary preset;
+    private final byte[] header = new byte[LZWFormat.PRESET_HEADER_SIZE];
+    private int headerLength;
+    private LZWCodeTable table; // Null until the header is complete
+    private LZWFormat.CodeWidth width;
+    private long bits;
+    private int bitCount;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferLength;
+    private boolean finished;
+
+    public LZWDecoder(OutputStream out) {
+        this(out, null);
+    }
+
+    // A decoder for streams that may have been compressed with the given preset dictionary
+    public LZWDecoder(OutputStream out, LZWPresetDictionary preset) {
+        this.out = out;
+        this.preset = preset;
+    }
+
+    public void update(byte[] input) throws IOException {
+        update(input, 0, input.length);
+    }
+
+    public void update(byte[] input, int offset, int length) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Decoder is finished");
+        }
+        int end = offset + length;
+        while (table == null && offset < end) {
+            header[headerLength++] = input[offset++];
+            readHeader();
+        }
+
+        long bits = this.bits;
+        int bitCount = this.bitCount;
+        for (int i = offset; i < end; i++) {
+            bits |= (input[i] & 0xFFL) << bitCount;
+            bitCount += 8;
+            while (bitCount >= width.bits) {
+                int code = (int) bits & ((1 << width.bits) - 1);
+                bits >>>= width.bits;
+                bitCount -= width.bits;
+                decode(code);
+            }
+        }
+        this.bits = bits;
+        this.bitCount = bitCount;
+        flushBuffer();
+    }
+
+    // Decode the bytes between the position and the limit of input, and advance its position
+    public void update(ByteBuffer input) throws IOException {
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+        } else {
+            byte[] chunk = new byte[Math.min(input.remaining(), BUFFER_SIZE)];
+            while (input.hasRemaining()) {
+                int length = Math.min(chunk.length, input.remaining());
+                input.get(chunk, 0, length);
+                update(chunk, 0, length);
+            }
+        }
+    }
+
+    // Check that the stream ended cleanly, write the remaining bytes and flush the output
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (table == null) {
+            throw new EOFException("Unexpected end of LZW header");
+        }
+        // Only the zero padding of the last byte may be left
+        if (bitCount >= 8 || bits != 0) {
+            throw new IOException("Corrupt LZW data: " + bitCount + " bits left after the last code");
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+    private void decode(int code) throws IOException {
+        if (bufferLength + table.maxLength() + 1 > buffer.length) {
+            flushBuffer();
+            if (table.maxLength() + 1 > buffer.length) {
+                buffer = new byte[Math.max(buffer.length * 2, table.maxLength() + 1)];
+            }
+        }
+        try {
+            bufferLength += table.decode(code, buffer, bufferLength);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt LZW data: " + e.getMessage(), e);
+        }
+        width.next(code);
+    }
+
+    private void flushBuffer() throws IOException {
+        if (bufferLength > 0) {
+            out.write(buffer, 0, bufferLength);
+            bufferLength = 0;
+        }
+    }
+
+    // Parse the header once enough of it has arrived
+    private void readHeader() throws IOException {
+        // Version 1 headers are one byte shorter, and a preset id makes them longer
+        if (headerLength < LZWFormat.HEADER_SIZE - 1
+                || (headerLength == LZWFormat.HEADER_SIZE - 1 && header[4] != 1)
+                || (headerLength > LZWFormat.HEADER_SIZE - 1 && headerLength < LZWFormat.headerSize(header))) {
+            return;
+        }
+        int[] settings = LZWFormat.readHeader(new DataInputStream(new ByteArrayInputStream(header, 0, headerLength)),
+                preset);
+        int maxBits = settings[0];
+        LZWPolicy policy = LZWPolicy.values()[settings[1]];
+        LZWPresetDictionary used = settings[2] != 0 ? preset : null;
+        try {
+            table = new LZWCodeTable(1 << 12, LZW.maxCodes(maxBits), policy, used);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt LZW header: " + e.getMessage(), e);
+        }
+        width = new LZWFormat.CodeWidth(maxBits, policy, used);
+    }
+}
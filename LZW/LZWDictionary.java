@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+// Encoder dictionary that maps (prefix code, next symbol) pairs to codes in a primitive
+// open-addressing table. Looking up p + c is a single probe sequence on two ints, with no
+// String building, text hashing or boxing.
+public class LZWDictionary {
+    private static final long EMPTY = -1;
+
+    private long[] keys; // prefix << 8 | symbol, or EMPTY
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LZWDictionary(int expectedEntries) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedEntries) * 4 - 1);
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // A copy with the same entries, which can change without affecting this one
+    public LZWDictionary copy() {
+        LZWDictionary copy = new LZWDictionary(16);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.mask = mask;
+        copy.size = size;
+        return copy;
+    }
+
+    // Code for prefix followed by symbol (0-255), or -1 when there is no such entry
+    public int get(int prefix, int symbol) {
+        long key = (long) prefix << 8 | symbol;
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Add an entry for prefix followed by symbol, which must not be in the dictionary yet
+    public void put(int prefix, int symbol, int code) {
+        if (size * 2 >= keys.length) {
+            grow();
+        }
+        long key = (long) prefix << 8 | symbol;
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = code;
+        size++;
+    }
+
+    // Remove the entry for prefix followed by symbol, if there is one. Later entries of the probe
+    // run are shifted back into the hole, so lookups never need tombstones.
+    public void remove(int prefix, int symbol) {
+        long key = (long) prefix << 8 | symbol;
+        int index = slot(key);
+        while (keys[index] != key) {
+            if (keys[index] == EMPTY) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        int hole = index;
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            // An entry can fill the hole when the hole lies between its home slot and where it is
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    // Remove every entry
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = slot(oldKeys[i]);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Incremental LZW encoder: feed input with update as it arrives and call finish at the end.
+// Codes are bit-packed in the LZWFormat layout and written as soon as they are known, so memory
+// stays bounded by the dictionary however long the input is, and output starts before the
+// input has all arrived. The current string is carried across update calls, so the codes are the
+// same however the input is split.
+public class LZWEncoder {
+    private static final int SLICE = 8192; // Input bytes encoded between writes
+
+    private final LZWDictionary base; // Shared preset entries, only read; null without a preset
+    private final LZWDictionary dictionary; // Entries added by this encoder
+    private final long maxCodes;
+    private final LZWPolicy policy;
+    private final LZWPresetDictionary.Layout preset; // Null without a preset dictionary
+    private final int startCode; // Code for the first new entry after the single bytes and the preset
+    private int code; // Code for the next new entry
+
+    // LRU needs each entry's key to take it out of the dictionary, and the leaves in use order
+    private int[] prefixes;
+    private byte[] symbols;
+    private final LZWLeafList leaves;
+
+    private int p = -1; // Code of the current string, or -1 before the first byte
+    private int[] codes; // Codes not written yet
+    private int count;
+
+    private final BitWriter writer; // Null when the codes are collected in memory
+    private final LZWFormat.CodeWidth width;
+    private boolean finished;
+
+    // Write the LZWFormat header to out now, and the codes as update and finish produce them
+    public LZWEncoder(OutputStream out, int maxBits, LZWPolicy policy) throws IOException {
+        this(out, maxBits, policy, null);
+    }
+
+    // As above, starting from the entries of a preset dictionary, which the decoder needs too
+    public LZWEncoder(OutputStream out, int maxBits, LZWPolicy policy, LZWPresetDictionary preset)
+            throws IOException {
+        this(LZW.maxCodes(maxBits), policy, preset, 1 << 12, new BitWriter(out),
+                new LZWFormat.CodeWidth(maxBits, policy, preset));
+        LZWFormat.writeHeader(out, maxBits, policy, preset);
+    }
+
+    // Collect every code in memory, for LZW.compressCodes; expectedLength sizes the buffers
+    LZWEncoder(long maxCodes, LZWPolicy policy, LZWPresetDictionary preset, int expectedLength) {
+        this(maxCodes, policy, preset, expectedLength, null, null);
+    }
+
+    private LZWEncoder(long maxCodes, LZWPolicy policy, LZWPresetDictionary preset, int expectedLength,
+                       BitWriter writer, LZWFormat.CodeWidth width) {
+        this.maxCodes = maxCodes;
+        this.policy = policy;
+        this.writer = writer;
+        this.width = width;
+        this.preset = preset != null ? preset.layout(policy, maxCodes) : null;
+        startCode = policy.firstCode() + (preset != null ? preset.size() : 0);
+        code = startCode;
+        base = this.preset != null ? this.preset.dictionary : null;
+        dictionary = new LZWDictionary(256); // Grows as entries are added, so short messages stay cheap
+        codes = new int[writer != null ? 2 * SLICE + 2 : Math.max(16, expectedLength / 4)];
+        if (policy == LZWPolicy.LRU) {
+            int capacity = (int) Math.min(maxCodes, Math.max(4096L, Math.min(expectedLength, 1 << 20) + 257L));
+            capacity = Math.max(capacity, startCode);
+            prefixes = new int[capacity];
+            symbols = new byte[capacity];
+            if (preset != null) {
+                System.arraycopy(this.preset.prefixes, 0, prefixes, 0, startCode);
+                System.arraycopy(preset.symbols(), 0, symbols, policy.firstCode(), preset.size());
+                leaves = new LZWLeafList(this.preset.leaves, capacity);
+            } else {
+                leaves = new LZWLeafList(code, capacity);
+            }
+        } else {
+            leaves = null;
+        }
+    }
+
+    public void update(byte[] input) throws IOException {
+        update(ByteBuffer.wrap(input));
+    }
+
+    public void update(byte[] input, int offset, int length) throws IOException {
+        update(ByteBuffer.wrap(input, offset, length));
+    }
+
+    // Encode the bytes between the position and the limit of input, and advance its position
+    public void update(ByteBuffer input) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Encoder is finished");
+        }
+        int end = input.limit();
+        for (int begin = input.position(); begin < end; begin += SLICE) {
+            encode(input, begin, Math.min(end, begin + SLICE));
+            drain();
+        }
+        input.position(end);
+    }
+
+    // Write the code for the last string and the final bits, and flush the output
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        end();
+        drain();
+        writer.flush();
+    }
+
+    // Encode input between begin and end into the code buffer
+    void encode(ByteBuffer input, int begin, int end) {
+        if (begin == end) {
+            return;
+        }
+        int p = this.p;
+        if (p < 0) {
+            p = input.get(begin++) & 0xFF;
+        }
+
+        for (int i = begin; i < end; i++) {
+            int c = input.get(i) & 0xFF;
+            int pc = lookup(p, c); // Code of the current string plus the character, if known
+
+            if (pc >= 0) {
+                p = pc;
+                continue;
+            }
+
+            if (count + 2 > codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            codes[count++] = p; // Add the code for the current string to the compressed data.
+            add(p, c);
+            p = c; // Start a new current string with the current character.
+        }
+        this.p = p;
+    }
+
+    // Emit the code for the last string
+    void end() {
+        if (p >= 0) {
+            if (count == codes.length) {
+                codes = Arrays.copyOf(codes, count + 1);
+            }
+            codes[count++] = p; // Add the code for the last current string.
+            p = -1;
+        }
+    }
+
+    // The codes collected so far
+    int[] codes() {
+        return Arrays.copyOf(codes, count);
+    }
+
+    // Code for p followed by c, or -1. Only single bytes and preset entries have preset children.
+    // Under LRU a preset entry only counts while its code still stands for p followed by c.
+    private int lookup(int p, int c) {
+        if (base != null && p < startCode) {
+            int pc = base.get(p, c);
+            if (pc >= 0 && (prefixes == null || prefixes[pc] == p && symbols[pc] == (byte) c)) {
+                return pc;
+            }
+        }
+        return dictionary.get(p, c);
+    }
+
+    // Add p followed by c after p was emitted, following the policy when the dictionary is full
+    private void add(int p, int c) {
+        if (code < maxCodes) {
+            if (leaves != null) {
+                leaves.touch(p);
+                leaves.addChild(p);
+                if (code == prefixes.length) {
+                    int capacity = (int) Math.min(maxCodes, code * 2L);
+                    prefixes = Arrays.copyOf(prefixes, capacity);
+                    symbols = Arrays.copyOf(symbols, capacity);
+                    leaves.ensureCapacity(capacity);
+                }
+                prefixes[code] = p;
+                symbols[code] = (byte) c;
+                leaves.added(code);
+            }
+            dictionary.put(p, c, code++); // Add the new combination to the dictionary.
+        } else if (policy == LZWPolicy.RESET) {
+            codes[count++] = LZWPolicy.CLEAR; // Tell the decoder to start over.
+            dictionary.clear(); // The preset entries are still in place
+            code = startCode;
+        } else if (policy == LZWPolicy.LRU) {
+            // Reuse the code of the least recently used leaf.
+            leaves.touch(p);
+            leaves.addChild(p);
+            int victim = leaves.victim();
+            if (victim >= 0) {
+                dictionary.remove(prefixes[victim], symbols[victim] & 0xFF);
+                leaves.remove(victim, prefixes[victim]);
+                prefixes[victim] = p;
+                symbols[victim] = (byte) c;
+                leaves.added(victim);
+                dictionary.put(p, c, victim);
+            } else {
+                leaves.removeChild(p);
+            }
+        }
+    }
+
+    // Pack the buffered codes into the output
+    private void drain() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            writer.write(codes[i], width.bits);
+            width.next(codes[i]);
+        }
+        count = 0;
+    }
+}
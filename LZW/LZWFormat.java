@@ -0,0 +1,216 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Binary container for LZW codes, bit-packed the way Unix compress and GIF do it.
+// Codes start 9 bits wide and grow by one bit each time the decoder's dictionary outgrows the
+// current width, up to the maximum width recorded in the header. The encoder and decoder track
+// the same dictionary size, so no widths are stored; the stream ends when fewer bits than the
+// current width are left, because the zero padding in the last byte is always shorter.
+// The header also records the policy for a full dictionary; under RESET the width drops back to
+// 9 bits after each CLEAR code. Streams that start from a preset dictionary flag it in the policy
+// byte, followed by the preset's id, and codes then start as wide as the preset needs.
+public class LZWFormat {
+    public static final LZWPolicy DEFAULT_POLICY = LZWPolicy.RESET;
+
+    private static final int MAGIC = 0x4C5A5742; // "LZWB"
+    private static final int VERSION = 2; // Version 1 had no policy byte and always froze
+    private static final int FLAG_PRESET = 0x80;
+    static final int HEADER_SIZE = 7;
+    static final int PRESET_HEADER_SIZE = 11;
+
+    // Compress input and write it in this format
+    public static void compress(String input, int maxBits, OutputStream out) throws IOException {
+        compress(input, maxBits, DEFAULT_POLICY, out);
+    }
+
+    public static void compress(String input, int maxBits, LZWPolicy policy, OutputStream out) throws IOException {
+        int[] codes = LZW.compressCodes(input, maxBits, policy);
+        write(codes, codes.length, maxBits, policy, out);
+    }
+
+    // Compress raw bytes and write them in this format
+    public static void compress(byte[] input, int maxBits, LZWPolicy policy, OutputStream out) throws IOException {
+        int[] codes = LZW.compressCodes(input, maxBits, policy);
+        write(codes, codes.length, maxBits, policy, out);
+    }
+
+    // Compress raw bytes starting from a preset dictionary; decompress them with the same preset
+    public static void compress(byte[] input, int maxBits, LZWPolicy policy, LZWPresetDictionary preset,
+                                OutputStream out) throws IOException {
+        int[] codes = LZW.compressCodes(input, maxBits, policy, preset);
+        write(codes, codes.length, maxBits, policy, preset, out);
+    }
+
+    // Compress everything left in the stream, reading and writing as it goes
+    public static void compress(InputStream in, OutputStream out, int maxBits, LZWPolicy policy) throws IOException {
+        LZWEncoder encoder = new LZWEncoder(out, maxBits, policy);
+        byte[] chunk = new byte[1 << 16];
+        int length;
+        while ((length = in.read(chunk)) != -1) {
+            encoder.update(chunk, 0, length);
+        }
+        encoder.finish();
+    }
+
+    // Read a file written by compress and return the decompressed bytes
+    public static byte[] decompress(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        decompress(in, out);
+        return out.toByteArray();
+    }
+
+    // Read data compressed with a preset dictionary and return the decompressed bytes
+    public static byte[] decompress(InputStream in, LZWPresetDictionary preset) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        decompress(in, out, preset);
+        return out.toByteArray();
+    }
+
+    // Decompress everything left in the stream, reading and writing as it goes
+    public static void decompress(InputStream in, OutputStream out) throws IOException {
+        decompress(in, out, null);
+    }
+
+    // As above, for data that may have been compressed with the given preset dictionary
+    public static void decompress(InputStream in, OutputStream out, LZWPresetDictionary preset) throws IOException {
+        LZWDecoder decoder = new LZWDecoder(out, preset);
+        byte[] chunk = new byte[1 << 16];
+        int length;
+        while ((length = in.read(chunk)) != -1) {
+            decoder.update(chunk, 0, length);
+        }
+        decoder.finish();
+    }
+
+    // Write the first count codes produced by LZW.compressCodes(String, maxBits)
+    public static void write(int[] codes, int count, int maxBits, OutputStream out) throws IOException {
+        write(codes, count, maxBits, LZWPolicy.FREEZE, out);
+    }
+
+    // Write the first count codes produced by LZW.compressCodes(String, maxBits, policy)
+    public static void write(int[] codes, int count, int maxBits, LZWPolicy policy, OutputStream out)
+            throws IOException {
+        write(codes, count, maxBits, policy, null, out);
+    }
+
+    // Write the first count codes produced by LZW.compressCodes(byte[], maxBits, policy, preset)
+    public static void write(int[] codes, int count, int maxBits, LZWPolicy policy, LZWPresetDictionary preset,
+                             OutputStream out) throws IOException {
+        CodeWidth width = new CodeWidth(maxBits, policy, preset);
+        writeHeader(out, maxBits, policy, preset);
+
+        BitWriter writer = new BitWriter(out);
+        for (int i = 0; i < count; i++) {
+            if (codes[i] >>> width.bits != 0) {
+                throw new IllegalArgumentException("Code " + codes[i] + " at index " + i + " does not fit " + width.bits + " bits");
+            }
+            writer.write(codes[i], width.bits);
+            width.next(codes[i]);
+        }
+        writer.flush();
+    }
+
+    static void writeHeader(OutputStream out, int maxBits, LZWPolicy policy, LZWPresetDictionary preset)
+            throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(maxBits);
+        header.writeByte(policy.ordinal() | (preset != null ? FLAG_PRESET : 0));
+        if (preset != null) {
+            header.writeInt(preset.id());
+        }
+    }
+
+    // Size of the header that starts with the given 7 bytes
+    static int headerSize(byte[] start) {
+        if (start[4] == 1) {
+            return HEADER_SIZE - 1;
+        }
+        return (start[6] & FLAG_PRESET) != 0 ? PRESET_HEADER_SIZE : HEADER_SIZE;
+    }
+
+    // Read and validate the header and check it against the preset dictionary, if any, that the
+    // caller has; returns the maximum code width, the policy ordinal and whether the preset is used
+    static int[] readHeader(DataInputStream header, LZWPresetDictionary preset) throws IOException {
+        int[] settings = readHeader(header);
+        if (settings[2] != 0) {
+            int id = header.readInt();
+            if (preset == null) {
+                throw new IOException("LZW data needs preset dictionary " + Integer.toHexString(id));
+            }
+            if (preset.id() != id) {
+                throw new IOException("LZW data needs preset dictionary " + Integer.toHexString(id)
+                        + ", not " + Integer.toHexString(preset.id()));
+            }
+        }
+        return settings;
+    }
+
+    // Read and validate the header up to the preset id; returns the maximum code width, the
+    // policy ordinal and the preset flag
+    private static int[] readHeader(DataInputStream header) throws IOException {
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not an LZW file");
+        }
+        int version = header.readUnsignedByte();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported LZW format version: " + version);
+        }
+        int maxBits = header.readUnsignedByte();
+        int flags = version == 1 ? LZWPolicy.FREEZE.ordinal() : header.readUnsignedByte();
+        int policy = flags & ~FLAG_PRESET;
+        if (maxBits < LZW.MIN_BITS || maxBits > LZW.MAX_BITS || policy >= LZWPolicy.values().length) {
+            throw new IOException("Corrupt LZW header");
+        }
+        return new int[] {maxBits, policy, flags & FLAG_PRESET};
+    }
+
+    // Follows the decoder's dictionary size to give the width of each code: wide enough for the
+    // code of the next entry, which the decoder may see before adding it
+    static final class CodeWidth {
+        private final int maxBits;
+        private final long maxCodes;
+        private final LZWPolicy policy;
+        private final int startSize; // Dictionary size at the start and after a CLEAR
+        private int size; // Dictionary size on the decoder side
+        private boolean first = true; // The next code is the first since the start or a CLEAR
+        int bits;
+
+        CodeWidth(int maxBits, LZWPolicy policy) {
+            this(maxBits, policy, null);
+        }
+
+        CodeWidth(int maxBits, LZWPolicy policy, LZWPresetDictionary preset) {
+            this.maxBits = maxBits;
+            this.maxCodes = LZW.maxCodes(maxBits);
+            this.policy = policy;
+            startSize = policy.firstCode() + (preset != null ? preset.size() : 0);
+            size = startSize;
+            bits = width();
+        }
+
+        // Account for code, which was just written or read
+        void next(int code) {
+            if (policy == LZWPolicy.RESET && code == LZWPolicy.CLEAR) {
+                size = startSize;
+                first = true;
+            } else {
+                // Every code after the first adds an entry on the decoder side, until the dictionary is full
+                if (!first && size < maxCodes) {
+                    size++;
+                }
+                first = false;
+            }
+            bits = width();
+        }
+
+        private int width() {
+            return Math.min(maxBits, 32 - Integer.numberOfLeadingZeros(size));
+        }
+    }
+}
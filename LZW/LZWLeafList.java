@@ -0,0 +1,124 @@
+import java.util.Arrays;
+
+// Recency list of the dictionary entries that no other entry extends, for the LRU policy.
+// Only leaves can be replaced, since every longer entry refers to its prefix by code. Using an
+// entry moves it to the front; an entry whose last child is replaced goes to the back, so it is
+// the next one to go. The encoder and decoder make the same calls in the same order, which
+// keeps their victims in step without sending anything.
+public class LZWLeafList {
+    private final int firstCode;
+    private int[] children; // Number of entries extending each code
+    private int[] previous;
+    private int[] next;
+    private boolean[] listed;
+    private int head = -1; // Most recently used leaf
+    private int tail = -1; // Least recently used leaf
+
+    // capacity is the number of entries to make room for up front, including the single bytes
+    public LZWLeafList(int firstCode, int capacity) {
+        this.firstCode = firstCode;
+        children = new int[capacity];
+        previous = new int[capacity];
+        next = new int[capacity];
+        listed = new boolean[capacity];
+    }
+
+    // A copy of other with room for codes below capacity
+    public LZWLeafList(LZWLeafList other, int capacity) {
+        firstCode = other.firstCode;
+        capacity = Math.max(capacity, other.children.length);
+        children = Arrays.copyOf(other.children, capacity);
+        previous = Arrays.copyOf(other.previous, capacity);
+        next = Arrays.copyOf(other.next, capacity);
+        listed = Arrays.copyOf(other.listed, capacity);
+        head = other.head;
+        tail = other.tail;
+    }
+
+    // A new entry extending prefix is about to be added
+    public void addChild(int prefix) {
+        if (children[prefix]++ == 0 && listed[prefix]) {
+            unlink(prefix);
+        }
+    }
+
+    // Undo addChild when no entry could be added after all
+    public void removeChild(int prefix) {
+        if (--children[prefix] == 0 && prefix >= firstCode) {
+            linkLast(prefix);
+        }
+    }
+
+    // Least recently used leaf, or -1 when there is none
+    public int victim() {
+        return tail;
+    }
+
+    // Take code, a leaf extending prefix, out of use before its slot is reused
+    public void remove(int code, int prefix) {
+        unlink(code);
+        removeChild(prefix);
+    }
+
+    // A new entry was stored at code
+    public void added(int code) {
+        children[code] = 0;
+        linkFirst(code);
+    }
+
+    // Code was used; leaves move to the front
+    public void touch(int code) {
+        if (listed[code] && head != code) {
+            unlink(code);
+            linkFirst(code);
+        }
+    }
+
+    // Make room for codes below capacity
+    public void ensureCapacity(int capacity) {
+        if (capacity > children.length) {
+            children = Arrays.copyOf(children, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            next = Arrays.copyOf(next, capacity);
+            listed = Arrays.copyOf(listed, capacity);
+        }
+    }
+
+    private void linkFirst(int code) {
+        previous[code] = -1;
+        next[code] = head;
+        if (head >= 0) {
+            previous[head] = code;
+        } else {
+            tail = code;
+        }
+        head = code;
+        listed[code] = true;
+    }
+
+    private void linkLast(int code) {
+        next[code] = -1;
+        previous[code] = tail;
+        if (tail >= 0) {
+            next[tail] = code;
+        } else {
+            head = code;
+        }
+        tail = code;
+        listed[code] = true;
+    }
+
+    private void unlink(int code) {
+        if (previous[code] >= 0) {
+            next[previous[code]] = next[code];
+        } else {
+            head = next[code];
+        }
+        if (next[code] >= 0) {
+            previous[next[code]] = previous[code];
+        } else {
+            tail = previous[code];
+        }
+        listed[code] = false;
+    }
+}
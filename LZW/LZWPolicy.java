@@ -0,0 +1,13 @@
+// What a bounded LZW dictionary does once every code is taken
+public enum LZWPolicy {
+    FREEZE, // Keep the entries it has and stop adding
+    RESET,  // Send a CLEAR code and start again from the 256 single bytes
+    LRU;    // Replace the least recently used entry that no other entry extends
+
+    public static final int CLEAR = 256; // Code that resets the dictionary under RESET
+
+    // First code given to a new entry; RESET keeps 256 for CLEAR
+    public int firstCode() {
+        return this == RESET ? CLEAR + 1 : 256;
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// LZW dictionary entries learned from sample data, used to prime encoders and decoders so that
+// short messages start out with the phrases they are likely to contain.
+// Instances are immutable: encoders and decoders read the prepared tables in place and keep the
+// entries they add on their own, so one preset can be shared by any number of threads, and
+// starting or RESETting with a preset costs nothing per entry. Only LRU, which can replace preset
+// entries, copies their codes and recency list.
+public final class LZWPresetDictionary {
+    private static final int MAGIC = 0x4C5A5744; // "LZWD"
+    private static final int VERSION = 1;
+    private static final int TRAINING_LIMIT = 1 << 20; // Largest dictionary built while training
+
+    // Entries in code order, numbered as if the first free code were 256
+    private final int[] prefixes;
+    private final byte[] symbols;
+    private final byte[] firstBytes;
+    private final int[] lengths;
+    private final int maxLength;
+    private final int id;
+
+    // Prepared copies for first free codes 256 (FREEZE, LRU) and 257 (RESET)
+    private final Layout[] layouts = new Layout[2];
+
+    // The arrays for one numbering of the entries
+    static final class Layout {
+        final int firstCode;
+        final int[] prefixes; // Indexed by code, like LZWCodeTable
+        final LZWDictionary dictionary;
+        final LZWLeafList leaves;
+
+        Layout(int firstCode, LZWPresetDictionary preset) {
+            this.firstCode = firstCode;
+            int size = firstCode + preset.size();
+            prefixes = new int[size];
+            dictionary = new LZWDictionary(size);
+            leaves = new LZWLeafList(firstCode, size);
+            for (int i = 0; i < preset.size(); i++) {
+                int prefix = preset.prefixes[i] < 256 ? preset.prefixes[i] : preset.prefixes[i] - 256 + firstCode;
+                prefixes[firstCode + i] = prefix;
+                dictionary.put(prefix, preset.symbols[i] & 0xFF, firstCode + i);
+                leaves.addChild(prefix);
+                leaves.added(firstCode + i);
+            }
+        }
+    }
+
+    private LZWPresetDictionary(int[] prefixes, byte[] symbols) {
+        this.prefixes = prefixes;
+        this.symbols = symbols;
+        firstBytes = new byte[symbols.length];
+        lengths = new int[symbols.length];
+        int maxLength = 1;
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < symbols.length; i++) {
+            int prefix = prefixes[i];
+            firstBytes[i] = prefix < 256 ? (byte) prefix : firstBytes[prefix - 256];
+            lengths[i] = prefix < 256 ? 2 : lengths[prefix - 256] + 1;
+            maxLength = Math.max(maxLength, lengths[i]);
+            crc.update(prefix >>> 16);
+            crc.update(prefix >>> 8);
+            crc.update(prefix);
+            crc.update(symbols[i]);
+        }
+        this.maxLength = maxLength;
+        id = (int) crc.getValue();
+        layouts[0] = new Layout(256, this);
+        layouts[1] = new Layout(257, this);
+    }
+
+    // Learn up to maxEntries entries from samples. Every sample is run through an LZW encoder with
+    // a shared dictionary, and the entries kept are the ones whose strings, counting the longer
+    // strings built on them, were emitted most often. A prefix is always used at least as often
+    // as the entries extending it, so the kept entries never refer to dropped ones.
+    public static LZWPresetDictionary train(List<byte[]> samples, int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Entry count must not be negative");
+        }
+        LZWDictionary dictionary = new LZWDictionary(4096);
+        int[] prefixes = new int[4096];
+        byte[] symbols = new byte[4096];
+        long[] uses = new long[256 + 4096];
+        int count = 0;
+
+        for (byte[] sample : samples) {
+            if (sample.length == 0) {
+                continue;
+            }
+            int p = sample[0] & 0xFF;
+            for (int i = 1; i < sample.length; i++) {
+                int c = sample[i] & 0xFF;
+                int pc = dictionary.get(p, c);
+                if (pc >= 0) {
+                    p = pc;
+                    continue;
+                }
+                uses[p]++;
+                if (count < TRAINING_LIMIT) {
+                    if (count == prefixes.length) {
+                        prefixes = Arrays.copyOf(prefixes, count * 2);
+                        symbols = Arrays.copyOf(symbols, count * 2);
+                        uses = Arrays.copyOf(uses, 256 + count * 2);
+                    }
+                    prefixes[count] = p;
+                    symbols[count] = (byte) c;
+                    dictionary.put(p, c, 256 + count++);
+                }
+                p = c;
+            }
+            uses[p]++;
+        }
+
+        // Fold the uses of every entry into its prefix, longest entries first
+        for (int i = count - 1; i >= 0; i--) {
+            if (prefixes[i] >= 256) {
+                uses[prefixes[i]] += uses[256 + i];
+            }
+        }
+
+        // Keep the most used entries; ties go to the older entry, so prefixes come first
+        long[] weights = uses;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> weights[256 + a] != weights[256 + b]
+                ? Long.compare(weights[256 + b], weights[256 + a]) : Integer.compare(a, b));
+        int kept = Math.min(maxEntries, count);
+        int[] selected = new int[kept];
+        for (int i = 0; i < kept; i++) {
+            selected[i] = order[i];
+        }
+        Arrays.sort(selected);
+
+        // Renumber the kept entries in their original order
+        int[] renumbered = new int[count];
+        int[] keptPrefixes = new int[kept];
+        byte[] keptSymbols = new byte[kept];
+        for (int i = 0; i < kept; i++) {
+            int entry = selected[i];
+            renumbered[entry] = 256 + i;
+            int prefix = prefixes[entry];
+            keptPrefixes[i] = prefix < 256 ? prefix : renumbered[prefix - 256];
+            keptSymbols[i] = symbols[entry];
+        }
+        return new LZWPresetDictionary(keptPrefixes, keptSymbols);
+    }
+
+    // Save the entries, to be loaded with read
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(size());
+        for (int i = 0; i < size(); i++) {
+            data.writeInt(prefixes[i]);
+            data.writeByte(symbols[i]);
+        }
+        data.flush();
+    }
+
+    // Load entries saved with write
+    public static LZWPresetDictionary read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an LZW preset dictionary");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported LZW preset dictionary version: " + version);
+        }
+        int size = data.readInt();
+        if (size < 0 || size > LZW.maxCodes(LZW.MAX_BITS) - 257) {
+            throw new IOException("Corrupt LZW preset dictionary");
+        }
+        int[] prefixes = new int[size];
+        byte[] symbols = new byte[size];
+        for (int i = 0; i < size; i++) {
+            prefixes[i] = data.readInt();
+            symbols[i] = data.readByte();
+            // Every entry extends a single byte or an earlier entry
+            if (prefixes[i] < 0 || prefixes[i] >= 256 + i) {
+                throw new IOException("Corrupt LZW preset dictionary");
+            }
+        }
+        return new LZWPresetDictionary(prefixes, symbols);
+    }
+
+    // Number of entries beyond the 256 single bytes
+    public int size() {
+        return symbols.length;
+    }
+
+    // Checksum of the entries, stored in streams compressed with this preset
+    public int id() {
+        return id;
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    byte[] symbols() {
+        return symbols;
+    }
+
+    byte[] firstBytes() {
+        return firstBytes;
+    }
+
+    int[] lengths() {
+        return lengths;
+    }
+
+    // The entries numbered from the first free code of policy, checked against the code limit
+    Layout layout(LZWPolicy policy, long maxCodes) {
+        Layout layout = layouts[policy.firstCode() - 256];
+        if (layout.firstCode + size() >= maxCodes) {
+            throw new IllegalArgumentException("Preset dictionary with " + size() + " entries leaves no free codes");
+        }
+        return layout;
+    }
+}
@@ -0,0 +1,6 @@
+// Which entries an LZW dictionary learns from each phrase it emits
+public enum LZWVariant {
+    LZW,  // The previous phrase plus the first byte of the current one
+    LZMW, // The previous phrase plus the whole current phrase, so repeats are learned in fewer passes
+    LZAP  // The previous phrase plus every prefix of the current phrase
+}
@@ -0,0 +1,256 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+// LZMW and LZAP alongside plain LZW. Both add entries built from whole phrases instead of one
+// byte at a time, so long repeats are learned after a few occurrences rather than one byte per
+// occurrence. The dictionary is a trie in the primitive (prefix, symbol) dictionary; entries
+// that are not prefix-closed leave nodes on the way that have no code, so the encoder remembers
+// the last node with a code while it walks. Dictionaries stop growing once every code is taken.
+//
+// File format: magic "LZWV", version, maximum code width, variant, then the codes packed LSB
+// first with the width of the largest code the decoder can expect at that point.
+public class LZWVariants {
+    private static final int MAGIC = 0x4C5A5756; // "LZWV"
+    private static final int VERSION = 1;
+
+    // Compress raw bytes with the given variant and return the codes
+    public static int[] compressCodes(byte[] input, int maxBits, LZWVariant variant) {
+        if (variant == LZWVariant.LZW) {
+            return LZW.compressCodes(input, maxBits, LZWPolicy.FREEZE);
+        }
+        return encode(input, LZW.maxCodes(maxBits), variant);
+    }
+
+    // Decompress the first count codes produced by compressCodes with the same settings
+    public static byte[] decompressCodes(int[] codes, int count, int maxBits, LZWVariant variant) {
+        if (variant == LZWVariant.LZW) {
+            return LZW.decompressCodes(codes, count, maxBits, LZWPolicy.FREEZE);
+        }
+        return decode(codes, count, LZW.maxCodes(maxBits), variant);
+    }
+
+    // Compress raw bytes and write them in the format above
+    public static void compress(byte[] input, int maxBits, LZWVariant variant, OutputStream out)
+            throws IOException {
+        int[] codes = compressCodes(input, maxBits, variant);
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(maxBits);
+        header.writeByte(variant.ordinal());
+
+        CodeWidth width = new CodeWidth(maxBits, variant);
+        BitWriter writer = new BitWriter(out);
+        for (int code : codes) {
+            writer.write(code, width.bits);
+            width.next(code);
+        }
+        writer.flush();
+    }
+
+    // Read data written by compress and return the decompressed bytes
+    public static byte[] decompress(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an LZW variant file");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported LZW variant format version: " + version);
+        }
+        int maxBits = data.readUnsignedByte();
+        int variant = data.readUnsignedByte();
+        if (maxBits < LZW.MIN_BITS || maxBits > LZW.MAX_BITS || variant >= LZWVariant.values().length) {
+            throw new IOException("Corrupt LZW variant header");
+        }
+        byte[] packed = data.readAllBytes();
+
+        // The width of each code depends on the entries before it, so unpack while following them
+        CodeWidth width = new CodeWidth(maxBits, LZWVariant.values()[variant]);
+        int[] codes = new int[packed.length * 8 / LZW.MIN_BITS + 1]; // Only the first code can be narrower
+        int count = 0;
+        long bits = 0;
+        int bitCount = 0;
+        for (byte b : packed) {
+            bits |= (b & 0xFFL) << bitCount;
+            bitCount += 8;
+            while (bitCount >= width.bits) {
+                int code = (int) bits & ((1 << width.bits) - 1);
+                bits >>>= width.bits;
+                bitCount -= width.bits;
+                if (!width.valid(code)) {
+                    throw new IOException("Corrupt LZW data: invalid code " + code + " at index " + count);
+                }
+                codes[count++] = code;
+                width.next(code);
+            }
+        }
+        if (bitCount >= 8 || bits != 0) {
+            throw new IOException("Corrupt LZW data: " + bitCount + " bits left after the last code");
+        }
+        try {
+            return decompressCodes(codes, count, maxBits, LZWVariant.values()[variant]);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt LZW data: " + e.getMessage(), e);
+        }
+    }
+
+    private static int[] encode(byte[] input, long maxCodes, LZWVariant variant) {
+        LZWDictionary trie = new LZWDictionary(4096);
+        int[] nodeCodes = new int[4096]; // Code of each trie node, or -1 for a node only on the way to longer entries
+        for (int i = 0; i < 256; i++) {
+            nodeCodes[i] = i;
+        }
+        int nodes = 256;
+        int code = 256; // Code for the next new entry
+        int[] codes = new int[Math.max(16, input.length / 4)];
+        int count = 0;
+
+        int previous = -1; // Start of the previous phrase
+        for (int i = 0; i < input.length; ) {
+            // Find the longest entry starting at i
+            int node = input[i] & 0xFF;
+            int match = node;
+            int end = i + 1;
+            for (int j = i + 1; j < input.length; j++) {
+                node = trie.get(node, input[j] & 0xFF);
+                if (node < 0) {
+                    break;
+                }
+                if (nodeCodes[node] >= 0) {
+                    match = nodeCodes[node];
+                    end = j + 1;
+                }
+            }
+            if (count == codes.length) {
+                codes = Arrays.copyOf(codes, count * 2);
+            }
+            codes[count++] = match;
+
+            // Add the previous phrase plus the current one (LZMW) or each prefix of it (LZAP).
+            // The two phrases are next to each other in the input, so walk the trie along it.
+            if (previous >= 0 && code < maxCodes) {
+                node = input[previous] & 0xFF;
+                for (int j = previous + 1; j < end && code < maxCodes; j++) {
+                    int child = trie.get(node, input[j] & 0xFF);
+                    if (child < 0) {
+                        child = nodes++;
+                        if (child == nodeCodes.length) {
+                            nodeCodes = Arrays.copyOf(nodeCodes, child * 2);
+                        }
+                        nodeCodes[child] = -1;
+                        trie.put(node, input[j] & 0xFF, child);
+                    }
+                    node = child;
+                    if (j >= i && (variant == LZWVariant.LZAP || j == end - 1)) {
+                        // The decoder cannot tell duplicates apart, so a known string still uses up a code
+                        if (nodeCodes[node] < 0) {
+                            nodeCodes[node] = code;
+                        }
+                        code++;
+                    }
+                }
+            }
+            previous = i;
+            i = end;
+        }
+        return Arrays.copyOf(codes, count);
+    }
+
+    // Every entry is a run of earlier output, so the decoder keeps only its start and length
+    private static byte[] decode(int[] codes, int count, long maxCodes, LZWVariant variant) {
+        int[] starts = new int[4096]; // Indexed by code - 256
+        int[] lengths = new int[4096];
+        int size = 256;
+        byte[] out = new byte[Math.max(16, count * 2)];
+        int position = 0;
+
+        int previous = -1; // Start of the previous phrase
+        for (int i = 0; i < count; i++) {
+            int code = codes[i];
+            if (code < 0 || code >= size) {
+                throw new IllegalArgumentException("Invalid LZW code " + code + " at index " + i);
+            }
+            int length = code < 256 ? 1 : lengths[code - 256];
+            if (position + length > out.length) {
+                out = Arrays.copyOf(out, Math.max(out.length * 2, position + length));
+            }
+            if (code < 256) {
+                out[position] = (byte) code;
+            } else {
+                System.arraycopy(out, starts[code - 256], out, position, length);
+            }
+
+            if (previous >= 0) {
+                for (int k = variant == LZWVariant.LZAP ? 1 : length; k <= length && size < maxCodes; k++) {
+                    if (size - 256 == starts.length) {
+                        starts = Arrays.copyOf(starts, starts.length * 2);
+                        lengths = Arrays.copyOf(lengths, lengths.length * 2);
+                    }
+                    starts[size - 256] = previous;
+                    lengths[size - 256] = position - previous + k;
+                    size++;
+                }
+            }
+            previous = position;
+            position += length;
+        }
+        return Arrays.copyOf(out, position);
+    }
+
+    // Follows the decoder's dictionary size to give the width of each code. LZMW and LZAP codes
+    // are always below the size; LZW may send the entry it is about to add.
+    static final class CodeWidth {
+        private final int maxBits;
+        private final long maxCodes;
+        private final LZWVariant variant;
+        private int[] lengths = new int[4096]; // LZAP entry lengths, indexed by code - 256
+        private int size = 256;
+        private int previousLength; // Length of the previous phrase, or 0 before the first
+        int bits;
+
+        CodeWidth(int maxBits, LZWVariant variant) {
+            this.maxBits = maxBits;
+            this.maxCodes = LZW.maxCodes(maxBits);
+            this.variant = variant;
+            bits = width();
+        }
+
+        boolean valid(int code) {
+            return code < (variant == LZWVariant.LZW ? size + 1 : size);
+        }
+
+        // Account for code, which was just written or read
+        void next(int code) {
+            if (variant != LZWVariant.LZAP) {
+                // One entry per code after the first
+                if (previousLength > 0 && size < maxCodes) {
+                    size++;
+                }
+                previousLength = 1;
+            } else {
+                int length = code < 256 ? 1 : lengths[code - 256];
+                if (previousLength > 0) {
+                    for (int k = 1; k <= length && size < maxCodes; k++) {
+                        if (size - 256 == lengths.length) {
+                            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+                        }
+                        lengths[size - 256] = previousLength + k;
+                        size++;
+                    }
+                }
+                previousLength = length;
+            }
+            bits = width();
+        }
+
+        private int width() {
+            int largest = variant == LZWVariant.LZW ? size : size - 1;
+            return Math.min(maxBits, 32 - Integer.numberOfLeadingZeros(largest));
+        }
+    }
+}
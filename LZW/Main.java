@@ -1,11 +1,19 @@
 import javax.swing.*;
 import java.awt.*;
 import java.io.*;
-import java.util.ArrayList;
+import java.lang.reflect.InvocationTargetException;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 public class Main {
     private static JLabel messageLabel; // Label for displaying success/failure messages
+    private static JProgressBar progressBar; // Share of the input file read so far
+    private static JLabel rateLabel; // Throughput of the running job
+    private static JButton compressButton;
+    private static JButton decompressButton;
+    private static JButton cancelButton;
+    private static FileTask task; // The running job, or null
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(Main::createAndShowGUI);
@@ -24,14 +32,30 @@ public class Main {
         topPanel.setLayout(new FlowLayout());
         messageLabel = new JLabel(""); // Message label
         topPanel.add(messageLabel); // Add message label to the top panel
+
+        // Progress of the running job, with a button to stop it
+        progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        rateLabel = new JLabel("");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (task != null) {
+                task.cancel(false);
+            }
+        });
+        topPanel.add(progressBar);
+        topPanel.add(rateLabel);
+        topPanel.add(cancelButton);
         frame.add(topPanel, BorderLayout.NORTH);
 
         // Create a panel to hold the compression and decompression buttons.
         JPanel buttonPanel = new JPanel();
         buttonPanel.setLayout(new GridLayout(3, 1, 100, 200)); // Grid layout with 3 rows and 1 column
 
-        JButton compressButton = new JButton("Compress");
-        JButton decompressButton = new JButton("Decompress");
+        compressButton = new JButton("Compress");
+        decompressButton = new JButton("Decompress");
         JButton exitButton = new JButton("Exit");
 
         // ActionListener for the Compress button
@@ -47,11 +71,8 @@ public class Main {
                 if (result == JFileChooser.APPROVE_OPTION) {
                     File outputFile = fileChooser.getSelectedFile();
 
-                    try {
-                        compress(inputFile, outputFile); // Perform compression.
-                    } catch (IOException ex) {
-                        showMessage("Compression failed: " + ex.getMessage(), Color.RED);
-                    }
+                    // Perform compression on a background thread.
+                    start(new FileTask("Compression", inputFile, outputFile, true));
                 }
             }
         });
@@ -69,11 +90,8 @@ public class Main {
                 if (result == JFileChooser.APPROVE_OPTION) {
                     File outputFile = fileChooser.getSelectedFile();
 
-                    try {
-                        decompress(inputFile, outputFile); // Perform decompression.
-                    } catch (IOException ex) {
-                        showMessage("Decompression failed: " + ex.getMessage(), Color.RED);
-                    }
+                    // Perform decompression on a background thread.
+                    start(new FileTask("Decompression", inputFile, outputFile, false));
                 }
             }
         });
@@ -96,73 +114,191 @@ public class Main {
         frame.setVisible(true);
     }
 
+    // Run a job in the background, with only the Cancel button enabled until it is done
+    private static void start(FileTask newTask) {
+        task = newTask;
+        compressButton.setEnabled(false);
+        decompressButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        rateLabel.setText("");
+        showMessage(newTask.name + " running...", Color.BLACK);
+        newTask.execute();
+    }
+
     // Methods for file compression and decompression
 
-    private static void compress(File inputFile, File outputFile) throws IOException {
-        // Read text from the input file.
-        String textToCompress = readTextFromFile(inputFile);
+    private static void compress(InputStream in, OutputStream out) throws IOException {
+        // Compress the input file into the output file as it is read, so memory use does not
+        // depend on the file size.
+        LZWFormat.compress(in, out, LZW.DEFAULT_MAX_BITS, LZWFormat.DEFAULT_POLICY);
+    }
 
-        // Perform LZW compression on the text.
-        List<Integer> compressedData = LZW.compress(textToCompress);
+    private static void decompress(InputStream in, OutputStream out) throws IOException {
+        // Decompress the input file into the output file as it is read.
+        LZWFormat.decompress(in, out);
+    }
 
-        // Write the compressed data to the output file.
-        writeCompressedDataToFile(outputFile, compressedData);
+    // Compresses or decompresses one file off the Event Dispatch Thread, publishing the number of
+    // input bytes read so far for the progress bar and the throughput readout
+    private static class FileTask extends SwingWorker<Void, Long> {
+        private final String name;
+        private final File inputFile;
+        private final File outputFile;
+        private final boolean compressing;
+        private final long length;
+        private long startNanos;
+        private boolean returned; // doInBackground has returned; only touched on the EDT
+        private boolean reported; // done has run; only touched on the EDT
 
-        // Display a success message in green.
-        showMessage("Compression succeeded", Color.GREEN);
-    }
+        FileTask(String name, File inputFile, File outputFile, boolean compressing) {
+            this.name = name;
+            this.inputFile = inputFile;
+            this.outputFile = outputFile;
+            this.compressing = compressing;
+            this.length = inputFile.length();
+        }
 
-    private static void decompress(File inputFile, File outputFile) throws IOException {
-        // Read compressed data from the input file.
-        List<Integer> compressedData = readCompressedDataFromFile(inputFile);
+        @Override
+        protected Void doInBackground() throws IOException {
+            startNanos = System.nanoTime();
+            boolean writing = false; // Whether this job has opened, and so truncated, the output file
+            boolean complete = false;
+            try (InputStream in = new ProgressInputStream(new FileInputStream(inputFile), this)) {
+                try (OutputStream out = new FileOutputStream(outputFile)) {
+                    writing = true;
+                    if (compressing) {
+                        compress(in, out);
+                    } else {
+                        decompress(in, out);
+                    }
+                }
+                complete = true;
+            } finally {
+                // A cancel that came in after the last read still counts, and a partial output
+                // file is of no use to anyone. A file this job never opened is left alone.
+                boolean cancelled = settle();
+                if (writing && (cancelled || !complete)) {
+                    outputFile.delete();
+                }
+                // Only now may another job start, since it could write the same file
+                SwingUtilities.invokeLater(this::returned);
+            }
+            return null;
+        }
 
-        // Perform LZW decompression on the data.
-        String decompressedText = LZW.decompress(compressedData);
+        // Turn Cancel off on the EDT, where it is clicked, and report whether the job was cancelled;
+        // no cancel can come in after this, so the answer is final
+        private boolean settle() {
+            boolean[] cancelled = new boolean[1];
+            try {
+                SwingUtilities.invokeAndWait(() -> {
+                    cancelButton.setEnabled(false);
+                    cancelled[0] = isCancelled();
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            } catch (InvocationTargetException e) {
+                return isCancelled();
+            }
+            return cancelled[0];
+        }
 
-        // Write the decompressed text to the output file.
-        writeDecompressedTextToFile(outputFile, decompressedText);
+        // Runs on the EDT once doInBackground has returned. After a cancel, done runs before the
+        // worker has stopped, so the buttons come back only when both have happened.
+        private void returned() {
+            returned = true;
+            if (reported) {
+                release();
+            }
+        }
 
-        // Display a success message in green.
-        showMessage("Decompression succeeded", Color.GREEN);
-    }
+        private void release() {
+            task = null;
+            compressButton.setEnabled(true);
+            decompressButton.setEnabled(true);
+        }
 
-    // File I/O methods
+        // Called by ProgressInputStream after every read
+        void read(long position) throws InterruptedIOException {
+            if (isCancelled()) {
+                throw new InterruptedIOException(name + " cancelled");
+            }
+            publish(position);
+        }
 
-    private static String readTextFromFile(File file) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
+        @Override
+        protected void process(List<Long> positions) {
+            if (isDone()) {
+                return; // Published before a cancel, after done reset the display
+            }
+            long position = positions.get(positions.size() - 1);
+            progressBar.setValue(length > 0 ? (int) (position * 1000 / length) : 1000);
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            if (seconds > 0) {
+                rateLabel.setText(String.format("%.1f MB/s", position / seconds / (1 << 20)));
             }
         }
-        return content.toString();
-    }
 
-    private static void writeCompressedDataToFile(File file, List<Integer> compressedData) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (int code : compressedData) {
-                writer.write(String.valueOf(code));
-                writer.write(" ");
+        @Override
+        protected void done() {
+            cancelButton.setEnabled(false);
+            reported = true;
+            if (returned) {
+                release();
+            }
+            try {
+                get();
+                progressBar.setValue(1000);
+                double seconds = (System.nanoTime() - startNanos) / 1e9;
+                rateLabel.setText(String.format("%.1f MB/s", length / seconds / (1 << 20)));
+                // Display a success message in green.
+                showMessage(name + " succeeded", Color.GREEN);
+            } catch (CancellationException e) {
+                // The worker deletes the partial output once it notices
+                progressBar.setVisible(false);
+                rateLabel.setText("");
+                showMessage(name + " cancelled", Color.RED);
+            } catch (ExecutionException e) {
+                progressBar.setVisible(false);
+                rateLabel.setText("");
+                showMessage(name + " failed: " + e.getCause().getMessage(), Color.RED);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
     }
 
-    private static List<Integer> readCompressedDataFromFile(File file) throws IOException {
-        List<Integer> compressedData = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line = reader.readLine();
-            String[] tokens = line.split(" ");
-            for (String token : tokens) {
-                compressedData.add(Integer.parseInt(token));
+    // Counts the bytes read and reports them to the task, which stops the read once cancelled
+    private static class ProgressInputStream extends FilterInputStream {
+        private final FileTask task;
+        private long position;
+
+        ProgressInputStream(InputStream in, FileTask task) {
+            super(in);
+            this.task = task;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                position++;
             }
+            task.read(position);
+            return b;
         }
-        return compressedData;
-    }
 
-    private static void writeDecompressedTextToFile(File file, String decompressedText) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            writer.write(decompressedText);
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                position += count;
+            }
+            task.read(position);
+            return count;
         }
     }
 
@@ -0,0 +1,308 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Chunk-parallel LZW. The input is cut into fixed-size chunks, and each one is compressed with a
+// fresh dictionary on its own ForkJoinPool task, so every core can work at once at the cost of
+// relearning the dictionary at each chunk boundary. Chunks decode independently too, straight
+// into their place in the output.
+//
+// Container format: a header with the code width, policy, chunk size, total length and chunk
+// count, the compressed size of each chunk, then the chunks, each in the LZWFormat layout.
+public class ParallelLZW {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+    private static final int MAGIC = 0x4C5A5750; // "LZWP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 23;
+
+    private final int maxBits;
+    private final LZWPolicy policy;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public ParallelLZW(int maxBits, LZWPolicy policy, int chunkSize) {
+        this(maxBits, policy, chunkSize, ForkJoinPool.commonPool());
+    }
+
+    public ParallelLZW(int maxBits, LZWPolicy policy, int chunkSize, ForkJoinPool pool) {
+        LZW.maxCodes(maxBits); // Validates the width
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.maxBits = maxBits;
+        this.policy = policy;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    // Compress the input into a framed container
+    public byte[] compress(byte[] input) {
+        int chunkCount = chunkCount(input.length, chunkSize);
+
+        // Compress every chunk on its own task
+        List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            int off = i * chunkSize;
+            int len = Math.min(chunkSize, input.length - off);
+            tasks.add(pool.submit(() -> compressChunk(ByteBuffer.wrap(input, off, len))));
+        }
+
+        try {
+            ByteArrayOutputStream framed = new ByteArrayOutputStream(input.length / 2 + 64);
+            writeHeader(new DataOutputStream(framed), input.length, chunkCount);
+
+            List<byte[]> chunks = new ArrayList<>(chunkCount);
+            DataOutputStream sizes = new DataOutputStream(framed);
+            for (ForkJoinTask<byte[]> task : tasks) {
+                byte[] chunk = task.join();
+                chunks.add(chunk);
+                sizes.writeInt(chunk.length);
+            }
+            for (byte[] chunk : chunks) {
+                framed.write(chunk);
+            }
+            return framed.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Compress a whole file into another, which may be larger than memory. Chunks are mapped
+    // from the input, and only a few per worker are in flight at a time.
+    public void compress(FileChannel in, FileChannel out) throws IOException {
+        long length = in.size();
+        int chunkCount = chunkCount(length, chunkSize);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(HEADER_SIZE);
+        writeHeader(new DataOutputStream(header), length, chunkCount);
+        writeFully(out, ByteBuffer.wrap(header.toByteArray()), 0);
+
+        // The chunk sizes go between the header and the chunks once they are all known
+        ByteBuffer sizes = ByteBuffer.allocate(4 * chunkCount);
+        long position = HEADER_SIZE + 4L * chunkCount;
+        ArrayDeque<ForkJoinTask<byte[]>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            while (next < chunkCount && inFlight.size() < 2 * pool.getParallelism()) {
+                long off = (long) next * chunkSize;
+                ByteBuffer chunk = in.map(FileChannel.MapMode.READ_ONLY, off, Math.min(chunkSize, length - off));
+                inFlight.add(pool.submit(() -> compressChunk(chunk)));
+                next++;
+            }
+            byte[] compressed = join(inFlight.poll());
+            sizes.putInt(compressed.length);
+            position += writeFully(out, ByteBuffer.wrap(compressed), position);
+        }
+        sizes.flip();
+        writeFully(out, sizes, HEADER_SIZE);
+    }
+
+    // Decompress a container written by compress, on the given pool
+    public static byte[] decompress(byte[] framed, ForkJoinPool pool) throws IOException {
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(framed));
+        long[] settings = readHeader(header);
+        int chunkSize = (int) settings[0];
+        if (settings[1] > Integer.MAX_VALUE) {
+            throw new IOException("Container holds " + settings[1] + " bytes, too many for an array");
+        }
+        int length = (int) settings[1];
+        int chunkCount = (int) settings[2];
+
+        long[] chunkStarts = chunkStarts(header, chunkCount);
+        if (chunkStarts[chunkCount] > framed.length) {
+            throw new IOException("Truncated parallel LZW container");
+        }
+
+        // Decode every chunk on its own task, straight into its place in the output
+        byte[] out = new byte[length];
+        List<ForkJoinTask<Void>> tasks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            int index = i;
+            tasks.add(pool.submit(() -> {
+                int start = (int) chunkStarts[index];
+                int off = index * chunkSize;
+                decodeChunk(ByteBuffer.wrap(framed, start, (int) chunkStarts[index + 1] - start),
+                        out, off, Math.min(chunkSize, length - off));
+                return null;
+            }));
+        }
+        for (ForkJoinTask<Void> task : tasks) {
+            join(task);
+        }
+        return out;
+    }
+
+    // Decompress a container written by compress, on the common pool
+    public static byte[] decompress(byte[] framed) throws IOException {
+        return decompress(framed, ForkJoinPool.commonPool());
+    }
+
+    // Decompress a container file into another, writing every chunk at its place as it is done
+    public static void decompress(FileChannel in, FileChannel out, ForkJoinPool pool) throws IOException {
+        ByteBuffer headerBytes = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(in, headerBytes, 0);
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(headerBytes.array()));
+        long[] settings = readHeader(header);
+        int chunkSize = (int) settings[0];
+        long length = settings[1];
+        int chunkCount = (int) settings[2];
+
+        ByteBuffer sizeBytes = ByteBuffer.allocate(4 * chunkCount);
+        readFully(in, sizeBytes, HEADER_SIZE);
+        long[] chunkStarts = chunkStarts(new DataInputStream(new ByteArrayInputStream(sizeBytes.array())), chunkCount);
+        if (chunkStarts[chunkCount] > in.size()) {
+            throw new IOException("Truncated parallel LZW container");
+        }
+
+        ArrayDeque<ForkJoinTask<Void>> inFlight = new ArrayDeque<>();
+        for (int i = 0; i < chunkCount; i++) {
+            if (inFlight.size() == 2 * pool.getParallelism()) {
+                join(inFlight.poll());
+            }
+            long off = (long) i * chunkSize;
+            int len = (int) Math.min(chunkSize, length - off);
+            ByteBuffer chunk = in.map(FileChannel.MapMode.READ_ONLY, chunkStarts[i], chunkStarts[i + 1] - chunkStarts[i]);
+            inFlight.add(pool.submit(() -> {
+                byte[] decoded = new byte[len];
+                decodeChunk(chunk, decoded, 0, len);
+                writeFully(out, ByteBuffer.wrap(decoded), off);
+                return null;
+            }));
+        }
+        while (!inFlight.isEmpty()) {
+            join(inFlight.poll());
+        }
+    }
+
+    // Decompress a container file into another, on the common pool
+    public static void decompress(FileChannel in, FileChannel out) throws IOException {
+        decompress(in, out, ForkJoinPool.commonPool());
+    }
+
+    private byte[] compressChunk(ByteBuffer chunk) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(chunk.remaining() / 2 + 16);
+        LZWEncoder encoder = new LZWEncoder(compressed, maxBits, policy);
+        encoder.update(chunk);
+        encoder.finish();
+        return compressed.toByteArray();
+    }
+
+    private static void decodeChunk(ByteBuffer chunk, byte[] out, int off, int len) throws IOException {
+        LZWDecoder decoder = new LZWDecoder(new OutputStream() {
+            private int position = off;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int from, int count) throws IOException {
+                if (position + count > off + len) {
+                    throw new IOException("Chunk at " + off + " decodes to more than " + len + " bytes");
+                }
+                System.arraycopy(b, from, out, position, count);
+                position += count;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (position != off + len) {
+                    throw new IOException("Chunk at " + off + " does not decode to " + len + " bytes");
+                }
+            }
+        });
+        decoder.update(chunk);
+        decoder.finish();
+    }
+
+    private void writeHeader(DataOutputStream header, long length, int chunkCount) throws IOException {
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(maxBits);
+        header.writeByte(policy.ordinal());
+        header.writeInt(chunkSize);
+        header.writeLong(length);
+        header.writeInt(chunkCount);
+    }
+
+    // Read and validate the header; returns the chunk size, total length and chunk count
+    private static long[] readHeader(DataInputStream header) throws IOException {
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a parallel LZW container");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported parallel LZW version: " + version);
+        }
+        header.readUnsignedByte(); // Code width and policy, repeated in every chunk
+        header.readUnsignedByte();
+        int chunkSize = header.readInt();
+        long length = header.readLong();
+        int chunkCount = header.readInt();
+        if (chunkSize < 1 || length < 0 || chunkCount != (length + chunkSize - 1) / chunkSize) {
+            throw new IOException("Corrupt parallel LZW header");
+        }
+        return new long[] {chunkSize, length, chunkCount};
+    }
+
+    // Offsets of the chunks in the container, from the size table, with the end of the last chunk
+    private static long[] chunkStarts(DataInputStream sizes, int chunkCount) throws IOException {
+        long[] chunkStarts = new long[chunkCount + 1];
+        chunkStarts[0] = HEADER_SIZE + 4L * chunkCount;
+        for (int i = 0; i < chunkCount; i++) {
+            chunkStarts[i + 1] = chunkStarts[i] + (sizes.readInt() & 0xFFFFFFFFL);
+        }
+        return chunkStarts;
+    }
+
+    private static int chunkCount(long length, int chunkSize) {
+        long count = (length + chunkSize - 1) / chunkSize;
+        if (count > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Too many chunks: " + count);
+        }
+        return (int) count;
+    }
+
+    // Wait for a task, passing its IOException on unwrapped
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated parallel LZW container");
+            }
+        }
+    }
+}